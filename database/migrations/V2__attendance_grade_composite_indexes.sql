@@ -0,0 +1,54 @@
+-- V2：考勤、成绩表按实际查询条件建立组合索引
+-- 适用于按 schema.sql 旧版本建好的库（新库直接使用 schema.sql 即可）；可重复执行
+--
+-- 考勤：班级 + 日期（班级某周/某天的考勤、点名）、学生 + 日期（学生考勤记录）
+-- 成绩：学生 + 学期 + 课程（学生成绩单、整班录入的已有成绩查询）、班级 + 考试日期（班级成绩、统计）
+-- 原 student_id / class_id 单列索引是组合索引的最左前缀，外键改由组合索引支持后删除
+
+SET NAMES utf8mb4;
+
+DROP PROCEDURE IF EXISTS add_index_if_missing;
+DROP PROCEDURE IF EXISTS drop_index_if_exists;
+
+DELIMITER //
+
+CREATE PROCEDURE add_index_if_missing(IN p_table VARCHAR(64), IN p_index VARCHAR(64), IN p_columns VARCHAR(255))
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', p_table, ' ADD INDEX ', p_index, ' (', p_columns, ')');
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+
+CREATE PROCEDURE drop_index_if_exists(IN p_table VARCHAR(64), IN p_index VARCHAR(64))
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index) THEN
+        SET @ddl = CONCAT('ALTER TABLE ', p_table, ' DROP INDEX ', p_index);
+        PREPARE stmt FROM @ddl;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+-- 先建组合索引，外键才能脱离单列索引
+CALL add_index_if_missing('attendance', 'idx_class_date', 'class_id, attendance_date');
+CALL add_index_if_missing('attendance', 'idx_student_date', 'student_id, attendance_date');
+CALL add_index_if_missing('grades', 'idx_student_semester_course', 'student_id, semester, course_name');
+CALL add_index_if_missing('grades', 'idx_class_exam_date', 'class_id, exam_date');
+
+CALL drop_index_if_exists('attendance', 'idx_student_id');
+CALL drop_index_if_exists('attendance', 'idx_class_id');
+CALL drop_index_if_exists('grades', 'idx_student_id');
+CALL drop_index_if_exists('grades', 'idx_class_id');
+
+DROP PROCEDURE add_index_if_missing;
+DROP PROCEDURE drop_index_if_exists;
+
+-- 更新统计信息，让优化器尽快选用新索引
+ANALYZE TABLE attendance, grades;
@@ -98,8 +98,8 @@ CREATE TABLE IF NOT EXISTS attendance (
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
     FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
-    INDEX idx_student_id (student_id),
-    INDEX idx_class_id (class_id),
+    INDEX idx_class_date (class_id, attendance_date),
+    INDEX idx_student_date (student_id, attendance_date),
     INDEX idx_attendance_date (attendance_date),
     INDEX idx_status (status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='考勤信息表';
@@ -121,8 +121,8 @@ CREATE TABLE IF NOT EXISTS grades (
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
     FOREIGN KEY (class_id) REFERENCES classes(id) ON DELETE CASCADE,
-    INDEX idx_student_id (student_id),
-    INDEX idx_class_id (class_id),
+    INDEX idx_student_semester_course (student_id, semester, course_name),
+    INDEX idx_class_exam_date (class_id, exam_date),
     INDEX idx_semester (semester),
     INDEX idx_academic_year (academic_year)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='成绩信息表';
@@ -150,6 +150,36 @@ CREATE TABLE IF NOT EXISTS todos (
     INDEX idx_related_class_id (related_class_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='待办事项表';
 
+-- 8. 考勤日汇总表（趋势统计使用，由应用增量维护，可通过 POST /api/statistics/rollups/rebuild 重建）
+CREATE TABLE IF NOT EXISTS attendance_daily_stats (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    stat_date DATE NOT NULL COMMENT '考勤日期',
+    class_id INT NOT NULL COMMENT '班级ID',
+    status ENUM('出勤', '迟到', '早退', '缺勤', '请假') NOT NULL COMMENT '考勤状态',
+    total BIGINT NOT NULL DEFAULT 0 COMMENT '记录数',
+    UNIQUE KEY uk_attendance_daily (stat_date, class_id, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='考勤日汇总表';
+
+-- 9. 成绩日汇总表
+CREATE TABLE IF NOT EXISTS grade_daily_stats (
+    id INT PRIMARY KEY AUTO_INCREMENT,
+    stat_date DATE NOT NULL COMMENT '考试日期',
+    class_id INT NOT NULL COMMENT '班级ID',
+    total BIGINT NOT NULL DEFAULT 0 COMMENT '记录数',
+    score_count BIGINT NOT NULL DEFAULT 0 COMMENT '有分数的记录数',
+    score_sum DECIMAL(14,2) NOT NULL DEFAULT 0 COMMENT '分数和',
+    UNIQUE KEY uk_grade_daily (stat_date, class_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='成绩日汇总表';
+
+-- 10. 删除记录表（增量同步接口 /api/{resource}/changes 据此返回已删除的 id，超过保留期后由应用清理）
+CREATE TABLE IF NOT EXISTS sync_tombstones (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    entity_type VARCHAR(32) NOT NULL COMMENT '资源类型（表名）',
+    entity_id INT NOT NULL COMMENT '被删除行的ID',
+    deleted_at DATETIME(3) NOT NULL COMMENT '删除时间',
+    INDEX idx_sync_tombstones_type_time (entity_type, deleted_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='删除记录表';
+
 -- 重新启用外键检查
 SET FOREIGN_KEY_CHECKS = 1;
 
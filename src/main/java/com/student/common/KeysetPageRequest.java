@@ -0,0 +1,45 @@
+package com.student.common;
+
+import lombok.Value;
+
+/**
+ * 列表接口的游标分页参数
+ * <p>
+ * sort 形如 "attendanceDate" 或 "attendanceDate,desc"，缺省按 id 升序；
+ * cursor 为上一页返回的 next_cursor；withTotal 为 true 时才额外执行一次 count。
+ */
+@Value
+public class KeysetPageRequest {
+    Integer size;
+    String cursor;
+    String sort;
+    boolean withTotal;
+
+    /**
+     * 是否请求分页；未传 size/cursor/sort 时列表接口仍返回完整列表，但超过 pagination.max-size 条时报错
+     */
+    public boolean isPaged() {
+        return size != null || cursor != null || sort != null;
+    }
+
+    public String getSortField() {
+        if (sort == null || sort.trim().isEmpty()) {
+            return "id";
+        }
+        return sort.split(",", 2)[0].trim();
+    }
+
+    public boolean isDescending() {
+        if (sort == null) {
+            return false;
+        }
+        String[] parts = sort.split(",", 2);
+        if (parts.length < 2 || parts[1].trim().isEmpty() || "asc".equalsIgnoreCase(parts[1].trim())) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(parts[1].trim())) {
+            return true;
+        }
+        throw new IllegalArgumentException("不支持的排序方向: " + parts[1].trim());
+    }
+}
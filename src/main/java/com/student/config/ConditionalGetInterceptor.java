@@ -0,0 +1,37 @@
+package com.student.config;
+
+import com.student.event.ResourceVersions;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 条件 GET：在进入控制器之前按资源版本号比对 If-None-Match / If-Modified-Since，
+ * 未变化时直接返回 304，不查询数据库也不序列化；变化时写入 ETag、Last-Modified 后照常处理
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+    private final ResourceVersions versions;
+    private final String resource;
+
+    public ConditionalGetInterceptor(ResourceVersions versions, String resource) {
+        this.versions = versions;
+        this.resource = resource;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        // 先取版本再加载数据：加载期间发生的写入只会让 ETag 偏旧，客户端下次会重新获取，不会缓存到旧内容
+        String etag = versions.etag(resource);
+        long lastModified = versions.lastModified(resource);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // 响应格式按 Accept 协商，缓存需按 Accept 区分
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return !new ServletWebRequest(request, response).checkNotModified(etag, lastModified);
+    }
+}
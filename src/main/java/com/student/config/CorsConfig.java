@@ -16,6 +16,9 @@ public class CorsConfig {
         config.addAllowedOriginPattern("*");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        // 前端自行带 If-None-Match 轮询时需要读取 ETag
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("Last-Modified");
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
     }
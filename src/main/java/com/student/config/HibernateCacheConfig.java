@@ -0,0 +1,76 @@
+package com.student.config;
+
+import com.student.entity.Class;
+import com.student.entity.Student;
+import com.student.entity.StudentRecord;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+
+/**
+ * Hibernate 二级缓存：学生、班级、学籍实体与查询缓存
+ * <p>
+ * 各区域在这里按配置的条目数建好（堆内、带过期时间）并开启 JCache 统计，
+ * 再把 CacheManager 交给 Hibernate；未在此创建的区域由 Hibernate 按默认配置创建并打印警告。
+ */
+@Configuration
+public class HibernateCacheConfig {
+    @Value("${entity-cache.ttl-ms:3600000}")
+    private long ttlMs;
+
+    @Value("${entity-cache.student-max-entries:20000}")
+    private long studentMaxEntries;
+
+    @Value("${entity-cache.class-max-entries:2000}")
+    private long classMaxEntries;
+
+    @Value("${entity-cache.record-max-entries:20000}")
+    private long recordMaxEntries;
+
+    @Value("${entity-cache.query-max-entries:10000}")
+    private long queryMaxEntries;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        Duration ttl = Duration.ofMillis(ttlMs);
+        createRegion(cacheManager, Student.class.getName(), studentMaxEntries, ttl);
+        createRegion(cacheManager, Class.class.getName(), classMaxEntries, ttl);
+        createRegion(cacheManager, StudentRecord.class.getName(), recordMaxEntries, ttl);
+        createRegion(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, queryMaxEntries, ttl);
+        // 表更新时间戳决定查询缓存是否过期，只有几张表，不能被淘汰或过期
+        createRegion(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 1000, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, long maxEntries, Duration ttl) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (ttl != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(builder));
+        cacheManager.enableStatistics(name, true);
+    }
+}
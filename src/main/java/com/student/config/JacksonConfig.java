@@ -0,0 +1,42 @@
+package com.student.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * 响应格式：JSON 之外按 Accept 可选 CBOR（application/cbor）与 Smile（application/x-jackson-smile）
+ * <p>
+ * 二进制格式的 ObjectMapper 由 Spring Boot 配置好的 builder 创建，与 JSON 共用 SNAKE_CASE、日期格式和模块，
+ * 字段名与取值完全一致，只是编码不同；同类型的 Bean 会替换 Spring MVC 按默认配置创建的转换器。
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * 用 LambdaMetafactory 生成的访问器代替反射读写属性，降低大列表序列化的 CPU；
+     * 自动注册到 JSON 与二进制格式的 ObjectMapper，可通过 serialization.blackbird=false 关闭做对比
+     */
+    @Bean
+    @ConditionalOnProperty(name = "serialization.blackbird", havingValue = "true", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
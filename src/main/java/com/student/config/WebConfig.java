@@ -0,0 +1,29 @@
+package com.student.config;
+
+import com.student.event.ResourceVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 被前端轮询的列表/概览接口启用条件 GET
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        conditional(registry, ResourceVersions.CLASSES, "/classes");
+        conditional(registry, ResourceVersions.CLASS_HIERARCHY, "/classes/hierarchy");
+        conditional(registry, ResourceVersions.STUDENTS, "/students");
+        conditional(registry, ResourceVersions.SCHEDULES, "/schedules");
+        conditional(registry, ResourceVersions.OVERVIEW, "/statistics/overview");
+    }
+
+    private void conditional(InterceptorRegistry registry, String resource, String path) {
+        registry.addInterceptor(new ConditionalGetInterceptor(resourceVersions, resource)).addPathPatterns(path);
+    }
+}
@@ -1,18 +1,20 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
-import com.student.dto.AttendanceDTO;
+import com.student.dto.RollCallRequest;
 import com.student.entity.Attendance;
-import com.student.entity.Class;
-import com.student.entity.Student;
-import com.student.repository.ClassRepository;
-import com.student.repository.StudentRepository;
 import com.student.service.AttendanceService;
+import com.student.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/attendance")
@@ -21,58 +23,70 @@ public class AttendanceController {
     private AttendanceService attendanceService;
 
     @Autowired
-    private StudentRepository studentRepository;
-
-    @Autowired
-    private ClassRepository classRepository;
+    private ExportService exportService;
 
     @GetMapping
-    public Result<List<AttendanceDTO>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) Integer studentId,
             @RequestParam(required = false) Integer classId,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) String courseName) {
-        List<Attendance> list = attendanceService.findAll(studentId, classId, status, startDate, endDate, courseName);
-        // 预加载学生和班级信息，避免 N+1
-        java.util.Set<Integer> studentIds = list.stream().map(Attendance::getStudentId)
-                .collect(java.util.stream.Collectors.toSet());
-        java.util.Set<Integer> classIds = list.stream().map(Attendance::getClassId)
-                .collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Integer, Student> studentMap = studentRepository.findAllById(studentIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Student::getId, java.util.function.Function.identity(),
-                        (a, b) -> a));
-        java.util.Map<Integer, Class> classMap = classRepository.findAllById(classIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Class::getId, java.util.function.Function.identity(),
-                        (a, b) -> a));
-
-        List<AttendanceDTO> result = list.stream().map(a -> {
-            AttendanceDTO dto = new AttendanceDTO();
-            dto.setId(a.getId());
-            dto.setStudent_id(a.getStudentId());
-            dto.setClass_id(a.getClassId());
-            dto.setAttendance_date(a.getAttendanceDate());
-            dto.setStatus(a.getStatus() != null ? a.getStatus().name() : null);
-            dto.setCourse_name(a.getCourseName());
-            dto.setRemark(a.getRemark());
-            dto.setCreated_at(a.getCreatedAt());
-            dto.setUpdated_at(a.getUpdatedAt());
-
-            Student s = studentMap.get(a.getStudentId());
-            if (s != null) {
-                dto.setStudent_name(s.getName());
-                dto.setStudent_no(s.getStudentNo());
-            }
-            Class c = classMap.get(a.getClassId());
-            if (c != null) {
-                dto.setClass_name(c.getClassName());
-                dto.setGrade(c.getGrade());
+            @RequestParam(required = false) String courseName,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(attendanceService.findPage(studentId, classId, status, startDate, endDate, courseName, fields, page));
             }
-            return dto;
-        }).collect(java.util.stream.Collectors.toList());
+            return Result.success(attendanceService.findAll(studentId, classId, status, startDate, endDate, courseName, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
 
-        return Result.success(result);
+    /**
+     * 考勤增量同步：首次不带 since 全量拉取，之后带上返回的 next_since；has_more 为 true 时继续拉取
+     */
+    @GetMapping("/changes")
+    public Result<?> changes(@RequestParam(required = false) String since,
+                             @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(attendanceService.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 流式导出考勤，format 为 ndjson（默认）或 csv，筛选参数与列表相同
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @RequestParam(required = false) Integer studentId,
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String courseName,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        String f;
+        try {
+            f = ExportService.checkFormat(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error(e.getMessage()));
+        }
+        StreamingResponseBody body = out -> exportService.exportAttendance(studentId, classId, status,
+                startDate, endDate, courseName, f, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=attendance." + f)
+                .contentType(ExportService.CSV.equals(f) ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
     }
 
     @PostMapping
@@ -85,6 +99,29 @@ public class AttendanceController {
         }
     }
 
+    /**
+     * 整班点名，返回写入条数和本次点名的状态汇总
+     */
+    @PostMapping("/roll-call")
+    public Result<java.util.Map<String, Object>> rollCall(@RequestBody RollCallRequest request) {
+        try {
+            java.util.Map<Integer, Attendance.AttendanceStatus> statuses = new java.util.HashMap<>();
+            if (request.getStatuses() != null) {
+                for (java.util.Map.Entry<Integer, String> e : request.getStatuses().entrySet()) {
+                    try {
+                        statuses.put(e.getKey(), Attendance.AttendanceStatus.valueOf(e.getValue()));
+                    } catch (IllegalArgumentException | NullPointerException ex) {
+                        return Result.error("点名失败: 无效的考勤状态 " + e.getValue());
+                    }
+                }
+            }
+            return Result.success(attendanceService.rollCall(request.getClass_id(), request.getAttendance_date(),
+                    request.getCourse_name(), request.getRemark(), statuses));
+        } catch (Exception e) {
+            return Result.error("点名失败: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public Result<Attendance> update(@PathVariable Integer id, @RequestBody java.util.Map<String, Object> data) {
         try {
@@ -3,6 +3,7 @@ package com.student.controller;
 import com.student.common.Result;
 import com.student.dto.ClassDTO;
 import com.student.entity.Class;
+import com.student.repository.ClassCache;
 import com.student.service.ClassService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,9 @@ public class ClassController {
     @Autowired
     private ClassService classService;
 
+    @Autowired
+    private ClassCache classCache;
+
     @GetMapping
     public Result<List<ClassDTO>> getAll(
             @RequestParam(required = false) String grade,
@@ -35,6 +39,14 @@ public class ClassController {
         return Result.success(result);
     }
 
+    /**
+     * 年级 -> 部门 -> 班级 层级，直接读取班级缓存
+     */
+    @GetMapping("/hierarchy")
+    public Result<List<java.util.Map<String, Object>>> getHierarchy() {
+        return Result.success(classCache.hierarchy());
+    }
+
     @GetMapping("/{id}")
     public Result<Class> getById(@PathVariable Integer id) {
         return Result.success(classService.findById(id));
@@ -1,18 +1,20 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
-import com.student.dto.GradeDTO;
-import com.student.entity.Class;
+import com.student.dto.ExamSheetRequest;
 import com.student.entity.Grade;
-import com.student.entity.Student;
-import com.student.repository.ClassRepository;
-import com.student.repository.StudentRepository;
 import com.student.service.GradeService;
+import com.student.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/grades")
@@ -21,59 +23,72 @@ public class GradeController {
     private GradeService gradeService;
 
     @Autowired
-    private StudentRepository studentRepository;
-
-    @Autowired
-    private ClassRepository classRepository;
+    private ExportService exportService;
 
     @GetMapping
-    public Result<List<GradeDTO>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) Integer studentId,
             @RequestParam(required = false) Integer classId,
             @RequestParam(required = false) String courseName,
             @RequestParam(required = false) String semester,
             @RequestParam(required = false) String academicYear,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<Grade> list = gradeService.findAll(studentId, classId, courseName, semester, academicYear, startDate, endDate);
-
-        java.util.Set<Integer> studentIds = list.stream().map(Grade::getStudentId).collect(java.util.stream.Collectors.toSet());
-        java.util.Set<Integer> classIds = list.stream().map(Grade::getClassId).collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Integer, Student> studentMap = studentRepository.findAllById(studentIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Student::getId, java.util.function.Function.identity(), (a, b) -> a));
-        java.util.Map<Integer, Class> classMap = classRepository.findAllById(classIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Class::getId, java.util.function.Function.identity(), (a, b) -> a));
-
-        List<GradeDTO> result = list.stream().map(g -> {
-            GradeDTO dto = new GradeDTO();
-            dto.setId(g.getId());
-            dto.setStudent_id(g.getStudentId());
-            dto.setClass_id(g.getClassId());
-            dto.setCourse_name(g.getCourseName());
-            dto.setExam_type(g.getExamType());
-            dto.setScore(g.getScore());
-            dto.setFull_score(g.getFullScore());
-            dto.setSemester(g.getSemester());
-            dto.setAcademic_year(g.getAcademicYear());
-            dto.setExam_date(g.getExamDate());
-            dto.setRemark(g.getRemark());
-            dto.setCreated_at(g.getCreatedAt());
-            dto.setUpdated_at(g.getUpdatedAt());
-
-            Student s = studentMap.get(g.getStudentId());
-            if (s != null) {
-                dto.setStudent_name(s.getName());
-                dto.setStudent_no(s.getStudentNo());
-            }
-            Class c = classMap.get(g.getClassId());
-            if (c != null) {
-                dto.setClass_name(c.getClassName());
-                dto.setGrade(c.getGrade());
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(gradeService.findPage(studentId, classId, courseName, semester, academicYear, startDate, endDate, fields, page));
             }
-            return dto;
-        }).collect(java.util.stream.Collectors.toList());
+            return Result.success(gradeService.findAll(studentId, classId, courseName, semester, academicYear, startDate, endDate, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
 
-        return Result.success(result);
+    /**
+     * 成绩增量同步：首次不带 since 全量拉取，之后带上返回的 next_since；has_more 为 true 时继续拉取
+     */
+    @GetMapping("/changes")
+    public Result<?> changes(@RequestParam(required = false) String since,
+                             @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(gradeService.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 流式导出成绩，format 为 ndjson（默认）或 csv，筛选参数与列表相同
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            @RequestParam(required = false) Integer studentId,
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) String courseName,
+            @RequestParam(required = false) String semester,
+            @RequestParam(required = false) String academicYear,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        String f;
+        try {
+            f = ExportService.checkFormat(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Result.error(e.getMessage()));
+        }
+        StreamingResponseBody body = out -> exportService.exportGrades(studentId, classId, courseName, semester,
+                academicYear, startDate, endDate, f, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=grades." + f)
+                .contentType(ExportService.CSV.equals(f) ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .body(body);
     }
 
     @PostMapping
@@ -86,6 +101,20 @@ public class GradeController {
         }
     }
 
+    /**
+     * 整班录入一次考试的成绩，返回写入条数、冲突和录入后的班级成绩汇总
+     */
+    @PostMapping("/exam-sheet")
+    public Result<java.util.Map<String, Object>> saveExamSheet(@RequestBody ExamSheetRequest request) {
+        try {
+            return Result.success(gradeService.saveExamSheet(request.getClass_id(), request.getCourse_name(),
+                    request.getExam_type(), request.getSemester(), request.getAcademic_year(), request.getExam_date(),
+                    request.getFull_score(), request.getLoaded_at(), request.getScores()));
+        } catch (Exception e) {
+            return Result.error("保存失败: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public Result<Grade> update(@PathVariable Integer id, @RequestBody java.util.Map<String, Object> data) {
         try {
@@ -162,4 +191,3 @@ public class GradeController {
     }
 }
 
-
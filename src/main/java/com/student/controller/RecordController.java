@@ -1,16 +1,15 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
 import com.student.dto.StudentRecordDTO;
-import com.student.entity.Class;
 import com.student.entity.Student;
 import com.student.entity.StudentRecord;
-import com.student.repository.ClassRepository;
+import com.student.repository.ClassCache;
 import com.student.repository.StudentRepository;
 import com.student.service.StudentRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/records")
@@ -22,65 +21,33 @@ public class RecordController {
     private StudentRepository studentRepository;
 
     @Autowired
-    private ClassRepository classRepository;
+    private ClassCache classCache;
 
     @GetMapping
-    public Result<List<StudentRecordDTO>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) Integer studentId,
-            @RequestParam(required = false) String recordStatus) {
-        List<StudentRecord> list = recordService.findAll(studentId, recordStatus);
-
-        java.util.Set<Integer> studentIds = list.stream().map(StudentRecord::getStudentId)
-                .collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Integer, Student> studentMap = studentRepository.findAllById(studentIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Student::getId, java.util.function.Function.identity(),
-                        (a, b) -> a));
-        java.util.Set<Integer> classIds = studentMap.values().stream().map(Student::getClassId)
-                .collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Integer, Class> classMap = classRepository.findAllById(classIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Class::getId, java.util.function.Function.identity(),
-                        (a, b) -> a));
-
-        List<StudentRecordDTO> result = list.stream().map(r -> {
-            StudentRecordDTO dto = new StudentRecordDTO();
-            dto.setId(r.getId());
-            dto.setStudent_id(r.getStudentId());
-            dto.setId_card(r.getIdCard());
-            dto.setNationality(r.getNationality());
-            dto.setEthnicity(r.getEthnicity());
-            dto.setPolitical_status(r.getPoliticalStatus());
-            dto.setHealth_status(r.getHealthStatus());
-            dto.setGuardian_name(r.getGuardianName());
-            dto.setGuardian_phone(r.getGuardianPhone());
-            dto.setPrevious_school(r.getPreviousSchool());
-            dto.setRecord_status(r.getRecordStatus() != null ? r.getRecordStatus().name() : null);
-            dto.setCreated_at(r.getCreatedAt());
-            dto.setUpdated_at(r.getUpdatedAt());
-
-            Student s = studentMap.get(r.getStudentId());
-            if (s != null) {
-                dto.setStudent_name(s.getName());
-                dto.setStudent_no(s.getStudentNo());
-                Class c = classMap.get(s.getClassId());
-                if (c != null) {
-                    dto.setClass_name(c.getClassName());
-                    dto.setGrade(c.getGrade());
-                }
+            @RequestParam(required = false) String recordStatus,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(recordService.findPage(studentId, recordStatus, fields, page));
             }
-            return dto;
-        }).collect(java.util.stream.Collectors.toList());
-
-        return Result.success(result);
+            return Result.success(recordService.findAll(studentId, recordStatus, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
     public Result<StudentRecordDTO> getById(@PathVariable Integer id) {
         StudentRecord r = recordService.findById(id);
         Student s = studentRepository.findById(r.getStudentId()).orElse(null);
-        Class c = null;
-        if (s != null) {
-            c = classRepository.findById(s.getClassId()).orElse(null);
-        }
+        ClassCache.ClassInfo c = s != null ? classCache.get(s.getClassId()) : null;
 
         StudentRecordDTO dto = new StudentRecordDTO();
         dto.setId(r.getId());
@@ -115,10 +82,7 @@ public class RecordController {
             return Result.success(null);
         }
         Student s = studentRepository.findById(r.getStudentId()).orElse(null);
-        Class c = null;
-        if (s != null) {
-            c = classRepository.findById(s.getClassId()).orElse(null);
-        }
+        ClassCache.ClassInfo c = s != null ? classCache.get(s.getClassId()) : null;
 
         StudentRecordDTO dto = new StudentRecordDTO();
         dto.setId(r.getId());
@@ -1,14 +1,11 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
-import com.student.dto.ScheduleDTO;
-import com.student.entity.Class;
 import com.student.entity.Schedule;
-import com.student.repository.ClassRepository;
 import com.student.service.ScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/schedules")
@@ -16,45 +13,39 @@ public class ScheduleController {
     @Autowired
     private ScheduleService scheduleService;
 
-    @Autowired
-    private ClassRepository classRepository;
-
     @GetMapping
-    public Result<List<ScheduleDTO>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) Integer classId,
             @RequestParam(required = false) String semester,
             @RequestParam(required = false) String academicYear,
-            @RequestParam(required = false) Integer dayOfWeek) {
-        List<Schedule> list = scheduleService.findAll(classId, semester, academicYear, dayOfWeek);
-        java.util.Set<Integer> classIds = list.stream().map(Schedule::getClassId).collect(java.util.stream.Collectors.toSet());
-        java.util.Map<Integer, Class> classMap = classRepository.findAllById(classIds).stream()
-                .collect(java.util.stream.Collectors.toMap(Class::getId, java.util.function.Function.identity(), (a, b) -> a));
-
-        List<ScheduleDTO> result = list.stream().map(s -> {
-            ScheduleDTO dto = new ScheduleDTO();
-            dto.setId(s.getId());
-            dto.setClass_id(s.getClassId());
-            dto.setCourse_name(s.getCourseName());
-            dto.setTeacher_name(s.getTeacherName());
-            dto.setDay_of_week(s.getDayOfWeek());
-            dto.setStart_time(s.getStartTime());
-            dto.setEnd_time(s.getEndTime());
-            dto.setClassroom(s.getClassroom());
-            dto.setSemester(s.getSemester());
-            dto.setAcademic_year(s.getAcademicYear());
-            dto.setCreated_at(s.getCreatedAt());
-            dto.setUpdated_at(s.getUpdatedAt());
-
-            Class c = classMap.get(s.getClassId());
-            if (c != null) {
-                dto.setClass_name(c.getClassName());
-                dto.setGrade(c.getGrade());
-                dto.setDepartment(c.getDepartment());
+            @RequestParam(required = false) Integer dayOfWeek,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(scheduleService.findPage(classId, semester, academicYear, dayOfWeek, fields, page));
             }
-            return dto;
-        }).collect(java.util.stream.Collectors.toList());
+            return Result.success(scheduleService.findAll(classId, semester, academicYear, dayOfWeek, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
 
-        return Result.success(result);
+    /**
+     * 课表增量同步：首次不带 since 全量拉取，之后带上返回的 next_since；has_more 为 true 时继续拉取
+     */
+    @GetMapping("/changes")
+    public Result<?> changes(@RequestParam(required = false) String since,
+                             @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(scheduleService.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
     }
 
     @PostMapping
@@ -131,4 +122,3 @@ public class ScheduleController {
     }
 }
 
-
@@ -1,11 +1,16 @@
 package com.student.controller;
 
 import com.student.common.Result;
+import com.student.dto.StatisticsJobRequest;
+import com.student.service.StatisticsJobService;
 import com.student.service.StatisticsService;
+import com.student.statistics.StatisticsPeriod;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -14,6 +19,9 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private StatisticsJobService statisticsJobService;
+
     @GetMapping("/count")
     public Result<?> getCount(
             @RequestParam String type,
@@ -35,9 +43,14 @@ public class StatisticsController {
         return Result.success(statisticsService.getTrend(type, groupBy, startDate, endDate));
     }
 
+    /**
+     * 数据对比：periods 为任意多个 "开始日期~结束日期"（如 periods=2024-09-01~2024-09-30,2024-10-01~2024-10-31），
+     * 未传时沿用 period1Start/period1End/period2Start/period2End 两个区间
+     */
     @GetMapping("/compare")
     public Result<?> getCompare(
             @RequestParam String type,
+            @RequestParam(required = false) List<String> periods,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate period1Start,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate period1End,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate period2Start,
@@ -45,7 +58,103 @@ public class StatisticsController {
             @RequestParam(required = false) String grade,
             @RequestParam(required = false) String department,
             @RequestParam(required = false) Integer classId) {
-        return Result.success(statisticsService.getCompare(type, period1Start, period1End, period2Start, period2End, grade, department, classId));
+        List<StatisticsPeriod> parsed = new ArrayList<>();
+        if (periods != null && !periods.isEmpty()) {
+            try {
+                for (String period : periods) {
+                    parsed.add(StatisticsPeriod.parse(period));
+                }
+            } catch (IllegalArgumentException e) {
+                return Result.error(e.getMessage());
+            }
+        } else {
+            parsed.add(new StatisticsPeriod(period1Start, period1End));
+            parsed.add(new StatisticsPeriod(period2Start, period2End));
+        }
+        return Result.success(statisticsService.getCompare(type, parsed, grade, department, classId));
+    }
+
+    /**
+     * 多维统计，如 source=attendance&dimensions=grade,time&measures=count,rate&timeBucket=month
+     * <p>
+     * 维度：class, grade, department, course, semester, academic_year, status, time；
+     * 指标：count, rate（考勤），avg, sum（成绩）
+     */
+    @GetMapping("/cube")
+    public Result<?> getCube(
+            @RequestParam String source,
+            @RequestParam(required = false) List<String> dimensions,
+            @RequestParam(required = false) List<String> measures,
+            @RequestParam(required = false) String timeBucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String grade,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) String status) {
+        try {
+            return Result.success(statisticsService.getCube(source, dimensions, measures, timeBucket,
+                    startDate, endDate, grade, department, classId, status));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 成绩得分率分布：默认合并草图计算，exact=true 时查询原始分数精确计算（仅限小范围）
+     */
+    @GetMapping("/grades/distribution")
+    public Result<?> getGradeDistribution(
+            @RequestParam(required = false) String courseName,
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) String grade,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String semester,
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false, defaultValue = "false") boolean exact,
+            @RequestParam(required = false, defaultValue = "10") int bucketWidth) {
+        try {
+            return Result.success(statisticsService.getGradeDistribution(courseName, classId, grade, department,
+                    semester, groupBy, exact, bucketWidth));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 提交异步统计任务，返回任务ID；相同参数的任务在结果有效期内直接复用
+     */
+    @PostMapping("/jobs")
+    public Result<Map<String, Object>> submitJob(@RequestBody StatisticsJobRequest request) {
+        try {
+            return Result.success("统计任务已提交", statisticsJobService.submit(request));
+        } catch (Exception e) {
+            return Result.error("提交失败: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public Result<Map<String, Object>> getJob(@PathVariable String id) {
+        try {
+            return Result.success(statisticsJobService.findById(id));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public Result<Map<String, Object>> rebuildRollups() {
+        return Result.success("日汇总表已重建", statisticsService.rebuildRollups());
+    }
+
+    @GetMapping("/cache")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(statisticsService.getCacheStats());
+    }
+
+    @GetMapping("/entity-cache")
+    public Result<Map<String, Object>> getEntityCacheStats() {
+        return Result.success(statisticsService.getEntityCacheStats());
     }
 
     @GetMapping("/overview")
@@ -1,10 +1,10 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
 import com.student.dto.StudentWithClassDTO;
-import com.student.entity.Class;
 import com.student.entity.Student;
-import com.student.repository.ClassRepository;
+import com.student.repository.ClassCache;
 import com.student.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -19,10 +19,10 @@ public class StudentController {
     private StudentService studentService;
 
     @Autowired
-    private ClassRepository classRepository;
+    private ClassCache classCache;
 
     @GetMapping
-    public Result<List<StudentWithClassDTO>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String studentNo,
             @RequestParam(required = false) Integer classId,
@@ -30,45 +30,50 @@ public class StudentController {
             @RequestParam(required = false) String department,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<Student> students = studentService.findAll(name, studentNo, classId, grade, department, status, startDate, endDate);
-        List<Class> classes = classRepository.findAll();
-        // 按班级ID建立映射
-        java.util.Map<Integer, Class> classMap = classes.stream()
-                .collect(java.util.stream.Collectors.toMap(Class::getId, java.util.function.Function.identity(), (a, b) -> a));
-
-        java.util.List<StudentWithClassDTO> result = students.stream().map(s -> {
-            StudentWithClassDTO dto = new StudentWithClassDTO();
-            dto.setId(s.getId());
-            dto.setStudent_no(s.getStudentNo());
-            dto.setName(s.getName());
-            dto.setGender(s.getGender() != null ? s.getGender().name() : null);
-            dto.setBirth_date(s.getBirthDate());
-            dto.setPhone(s.getPhone());
-            dto.setEmail(s.getEmail());
-            dto.setAddress(s.getAddress());
-            dto.setClass_id(s.getClassId());
-            dto.setEnrollment_date(s.getEnrollmentDate());
-            dto.setStatus(s.getStatus() != null ? s.getStatus().name() : null);
-            dto.setCreated_at(s.getCreatedAt());
-            dto.setUpdated_at(s.getUpdatedAt());
-
-            Class clazz = classMap.get(s.getClassId());
-            if (clazz != null) {
-                dto.setClass_name(clazz.getClassName());
-                dto.setGrade(clazz.getGrade());
-                dto.setDepartment(clazz.getDepartment());
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(studentService.findPage(name, studentNo, classId, grade, department, status, startDate, endDate, fields, page));
             }
-            return dto;
-        }).collect(java.util.stream.Collectors.toList());
+            return Result.success(studentService.findAll(name, studentNo, classId, grade, department, status, startDate, endDate, fields));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
 
-        return Result.success(result);
+    /**
+     * 输入联想：按匹配程度排序的学生列表，多个关键词以空格分隔
+     */
+    @GetMapping("/search")
+    public Result<List<java.util.Map<String, Object>>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return Result.success(studentService.search(q, limit));
+    }
+
+    /**
+     * 学生增量同步：首次不带 since 全量拉取，之后带上返回的 next_since；has_more 为 true 时继续拉取
+     */
+    @GetMapping("/changes")
+    public Result<?> changes(@RequestParam(required = false) String since,
+                             @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(studentService.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
     public Result<StudentWithClassDTO> getById(@PathVariable Integer id) {
         Student s = studentService.findById(id);
-        Class clazz = classRepository.findById(s.getClassId()).orElse(null);
+        ClassCache.ClassInfo clazz = classCache.get(s.getClassId());
 
         StudentWithClassDTO dto = new StudentWithClassDTO();
         dto.setId(s.getId());
@@ -102,6 +107,28 @@ public class StudentController {
         }
     }
 
+    /**
+     * 批量导入学生，请求体为学生数组（字段同新增接口），返回插入条数与逐行错误
+     */
+    @PostMapping("/bulk")
+    public Result<java.util.Map<String, Object>> bulkCreate(@RequestBody List<java.util.Map<String, Object>> rows) {
+        List<Student> students = new java.util.ArrayList<>(rows.size());
+        java.util.Map<Integer, String> errors = new java.util.HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                students.add(convertToStudent(rows.get(i)));
+            } catch (Exception e) {
+                students.add(null);
+                errors.put(i, "数据格式错误: " + e.getMessage());
+            }
+        }
+        try {
+            return Result.success(studentService.bulkCreate(students, errors));
+        } catch (Exception e) {
+            return Result.error("批量导入失败: " + e.getMessage());
+        }
+    }
+
     private Student convertToStudent(java.util.Map<String, Object> data) {
         Student student = new Student();
         
@@ -179,4 +206,3 @@ public class StudentController {
     }
 }
 
-
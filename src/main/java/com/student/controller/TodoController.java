@@ -1,5 +1,6 @@
 package com.student.controller;
 
+import com.student.common.KeysetPageRequest;
 import com.student.common.Result;
 import com.student.entity.Todo;
 import com.student.service.TodoService;
@@ -7,7 +8,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
-import java.util.List;
 
 @RestController
 @RequestMapping("/todos")
@@ -16,15 +16,41 @@ public class TodoController {
     private TodoService todoService;
 
     @GetMapping
-    public Result<List<Todo>> getAll(
+    public Result<?> getAll(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String priority,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) String assignee,
             @RequestParam(required = false) Integer relatedStudentId,
-            @RequestParam(required = false) Integer relatedClassId) {
-        return Result.success(todoService.findAll(status, priority, startDate, endDate, assignee, relatedStudentId, relatedClassId));
+            @RequestParam(required = false) Integer relatedClassId,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        KeysetPageRequest page = new KeysetPageRequest(size, cursor, sort, withTotal);
+        try {
+            if (page.isPaged()) {
+                return Result.success(todoService.findPage(status, priority, startDate, endDate, assignee,
+                        relatedStudentId, relatedClassId, page));
+            }
+            return Result.success(todoService.findAll(status, priority, startDate, endDate, assignee, relatedStudentId, relatedClassId));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 待办增量同步：首次不带 since 全量拉取，之后带上返回的 next_since；has_more 为 true 时继续拉取
+     */
+    @GetMapping("/changes")
+    public Result<?> changes(@RequestParam(required = false) String since,
+                             @RequestParam(required = false) Integer limit) {
+        try {
+            return Result.success(todoService.findChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,10 @@
+package com.student.dto;
+
+/**
+ * 考勤数量统计行（状态 + 年级 + 部门分组）
+ */
+public interface AttendanceCountRow extends AttendanceStatusCount {
+    String getGrade();
+
+    String getDepartment();
+}
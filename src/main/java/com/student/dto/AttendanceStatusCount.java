@@ -0,0 +1,12 @@
+package com.student.dto;
+
+import com.student.entity.Attendance;
+
+/**
+ * 考勤按状态计数
+ */
+public interface AttendanceStatusCount {
+    Attendance.AttendanceStatus getStatus();
+
+    Long getTotal();
+}
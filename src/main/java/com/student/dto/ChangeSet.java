@@ -0,0 +1,21 @@
+package com.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 增量同步结果：changed 为新增或修改的行（按 id 覆盖写入），deleted 为已删除的 id；
+ * 下次请求带上 next_since，has_more 为 true 时说明还有未取完的变化，应立即继续请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSet<T> {
+    private List<T> changed;
+    private List<Integer> deleted;
+    private String next_since;
+    private boolean has_more;
+}
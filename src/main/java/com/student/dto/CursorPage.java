@@ -0,0 +1,28 @@
+package com.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果；has_more 为 true 时用 next_cursor 请求下一页，total 仅在请求时计算
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String next_cursor;
+    private boolean has_more;
+    private Long total;
+
+    /**
+     * 转换本页数据（如实体转 DTO），游标与总数不变
+     */
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> converter) {
+        return new CursorPage<>(converter.apply(items), next_cursor, has_more, total);
+    }
+}
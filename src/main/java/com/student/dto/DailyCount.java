@@ -0,0 +1,10 @@
+package com.student.dto;
+
+/**
+ * 按日期计数，day 可能是 LocalDate 或 java.sql.Date（取决于查询表达式）
+ */
+public interface DailyCount {
+    Object getDay();
+
+    Long getTotal();
+}
@@ -0,0 +1,10 @@
+package com.student.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 成绩按日期汇总
+ */
+public interface DailyScoreSummary extends ScoreSummary {
+    LocalDate getStatDate();
+}
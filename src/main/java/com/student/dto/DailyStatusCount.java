@@ -0,0 +1,10 @@
+package com.student.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 考勤按日期 + 状态计数
+ */
+public interface DailyStatusCount extends AttendanceStatusCount {
+    LocalDate getStatDate();
+}
@@ -0,0 +1,26 @@
+package com.student.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 整班成绩录入（一张考试成绩单），scores 为 学生ID -> 分数（null 表示缺考）
+ * <p>
+ * loaded_at 为录入页面加载成绩单的时间，此后被他人修改过的成绩不会被覆盖，而是作为冲突返回。
+ */
+@Data
+public class ExamSheetRequest {
+    private Integer class_id;
+    private String course_name;
+    private String exam_type;
+    private String semester;
+    private String academic_year;
+    private LocalDate exam_date;
+    private BigDecimal full_score;
+    private LocalDateTime loaded_at;
+    private Map<Integer, BigDecimal> scores;
+}
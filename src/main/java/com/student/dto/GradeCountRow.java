@@ -0,0 +1,10 @@
+package com.student.dto;
+
+/**
+ * 成绩数量统计行（年级 + 部门分组），平均分由 scoreSum / scoreCount 计算
+ */
+public interface GradeCountRow extends ScoreSummary {
+    String getGrade();
+
+    String getDepartment();
+}
@@ -0,0 +1,20 @@
+package com.student.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 单条成绩的分数及其所属课程/班级/学期/年级
+ */
+public interface GradeScoreRow {
+    String getCourseName();
+
+    Integer getClassId();
+
+    String getSemester();
+
+    String getGrade();
+
+    BigDecimal getScore();
+
+    BigDecimal getFullScore();
+}
@@ -0,0 +1,18 @@
+package com.student.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 整班点名请求，statuses 为 学生ID -> 考勤状态，未列出的在读学生按出勤记录
+ */
+@Data
+public class RollCallRequest {
+    private Integer class_id;
+    private LocalDate attendance_date;
+    private String course_name;
+    private String remark;
+    private Map<Integer, String> statuses;
+}
@@ -0,0 +1,14 @@
+package com.student.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 成绩汇总（记录数、有分数的记录数、分数和）
+ */
+public interface ScoreSummary {
+    Long getTotal();
+
+    Long getScoreCount();
+
+    BigDecimal getScoreSum();
+}
@@ -0,0 +1,29 @@
+package com.student.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 异步统计任务请求，kind 为 count / trend / compare / cube，其余字段与对应统计接口的参数一致
+ */
+@Data
+public class StatisticsJobRequest {
+    private String kind;
+    private String type;
+    private String group_by;
+    private LocalDate start_date;
+    private LocalDate end_date;
+    private String grade;
+    private String department;
+    private Integer class_id;
+    private String status;
+    // compare：多个 "开始日期~结束日期"
+    private List<String> periods;
+    // cube：数据源、维度、指标、时间粒度
+    private String source;
+    private List<String> dimensions;
+    private List<String> measures;
+    private String time_bucket;
+}
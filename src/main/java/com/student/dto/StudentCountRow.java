@@ -0,0 +1,16 @@
+package com.student.dto;
+
+import com.student.entity.Student;
+
+/**
+ * 学生数量统计行（年级 + 部门 + 状态分组）
+ */
+public interface StudentCountRow {
+    String getGrade();
+
+    String getDepartment();
+
+    Student.StudentStatus getStatus();
+
+    Long getTotal();
+}
@@ -0,0 +1,14 @@
+package com.student.dto;
+
+import com.student.entity.Todo;
+
+/**
+ * 待办数量统计行（状态 + 优先级分组）
+ */
+public interface TodoCountRow {
+    Todo.TodoStatus getStatus();
+
+    Todo.Priority getPriority();
+
+    Long getTotal();
+}
@@ -6,7 +6,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance")
+@Table(name = "attendance", indexes = {
+        @Index(name = "idx_class_date", columnList = "class_id, attendance_date"),
+        @Index(name = "idx_student_date", columnList = "student_id, attendance_date")
+})
 @Data
 public class Attendance {
     @Id
@@ -0,0 +1,31 @@
+package com.student.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 考勤日汇总：每天 × 班级 × 状态 的记录数
+ */
+@Entity
+@Table(name = "attendance_daily_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_daily", columnNames = {"stat_date", "class_id", "status"}))
+@Data
+public class AttendanceDailyStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "class_id", nullable = false)
+    private Integer classId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, columnDefinition = "ENUM('出勤', '迟到', '早退', '缺勤', '请假')")
+    private Attendance.AttendanceStatus status;
+
+    @Column(name = "total", nullable = false)
+    private Long total = 0L;
+}
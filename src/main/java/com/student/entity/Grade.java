@@ -7,7 +7,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "grades")
+@Table(name = "grades", indexes = {
+        @Index(name = "idx_student_semester_course", columnList = "student_id, semester, course_name"),
+        @Index(name = "idx_class_exam_date", columnList = "class_id, exam_date")
+})
 @Data
 public class Grade {
     @Id
@@ -0,0 +1,34 @@
+package com.student.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 成绩日汇总：每个考试日期 × 班级 的记录数、有分数的记录数与分数和
+ */
+@Entity
+@Table(name = "grade_daily_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_grade_daily", columnNames = {"stat_date", "class_id"}))
+@Data
+public class GradeDailyStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "class_id", nullable = false)
+    private Integer classId;
+
+    @Column(name = "total", nullable = false)
+    private Long total = 0L;
+
+    @Column(name = "score_count", nullable = false)
+    private Long scoreCount = 0L;
+
+    @Column(name = "score_sum", nullable = false, precision = 14, scale = 2)
+    private BigDecimal scoreSum = BigDecimal.ZERO;
+}
@@ -0,0 +1,27 @@
+package com.student.entity;
+
+import lombok.Data;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 删除记录：供增量同步接口告知客户端哪些行已被删除，超过保留期后清理
+ */
+@Entity
+@Table(name = "sync_tombstones",
+        indexes = @Index(name = "idx_sync_tombstones_type_time", columnList = "entity_type, deleted_at, id"))
+@Data
+public class SyncTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 32)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    @Column(name = "deleted_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime deletedAt;
+}
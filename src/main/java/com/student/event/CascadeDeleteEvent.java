@@ -0,0 +1,52 @@
+package com.student.event;
+
+import com.student.entity.Attendance;
+import com.student.entity.Grade;
+
+import java.util.List;
+
+/**
+ * 删除学生/班级时将由外键级联删除的行，由 {@link CascadeDeletes} 在删除实体之前查出后发布
+ * <p>
+ * 级联删除的考勤、成绩、课表没有各自的 {@link EntityChangeEvent}，需要按行维护的组件统一从这里取：
+ * 同步监听器在删除所在事务内执行，事务监听器在提交后执行。考勤、成绩只带统计需要的列。
+ */
+public class CascadeDeleteEvent {
+    private final java.lang.Class<?> parentType;
+    private final Integer parentId;
+    private final List<Attendance> attendance;
+    private final List<Grade> grades;
+    private final List<Integer> scheduleIds;
+
+    CascadeDeleteEvent(java.lang.Class<?> parentType, Integer parentId,
+                       List<Attendance> attendance, List<Grade> grades, List<Integer> scheduleIds) {
+        this.parentType = parentType;
+        this.parentId = parentId;
+        this.attendance = attendance;
+        this.grades = grades;
+        this.scheduleIds = scheduleIds;
+    }
+
+    public boolean isAbout(java.lang.Class<?> type) {
+        return type.isAssignableFrom(parentType);
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public List<Attendance> getAttendance() {
+        return attendance;
+    }
+
+    public List<Grade> getGrades() {
+        return grades;
+    }
+
+    /**
+     * 级联删除的课表 id，仅删除班级时有
+     */
+    public List<Integer> getScheduleIds() {
+        return scheduleIds;
+    }
+}
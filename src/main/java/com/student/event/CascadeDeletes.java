@@ -0,0 +1,70 @@
+package com.student.event;
+
+import com.student.entity.Attendance;
+import com.student.entity.Class;
+import com.student.entity.Grade;
+import com.student.entity.Student;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 发布 {@link CascadeDeleteEvent}：删除学生/班级的 Service 在调用 repository.delete 之前调用，
+ * 此时将被级联删除的行一定还在。只查一次，各监听器共用结果；
+ * 走 JDBC 而不是 JPA 查询，不会触发 Hibernate 自动 flush。
+ */
+@Component
+public class CascadeDeletes {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public void beforeDelete(Student student) {
+        eventPublisher.publishEvent(collect(Student.class, student.getId(), "student_id", Collections.emptyList()));
+    }
+
+    public void beforeDelete(Class clazz) {
+        List<Integer> scheduleIds = jdbcTemplate.queryForList(
+                "SELECT id FROM schedules WHERE class_id = ?", Integer.class, clazz.getId());
+        eventPublisher.publishEvent(collect(Class.class, clazz.getId(), "class_id", scheduleIds));
+    }
+
+    private CascadeDeleteEvent collect(java.lang.Class<?> parentType, Integer parentId, String column,
+                                       List<Integer> scheduleIds) {
+        List<Attendance> attendance = jdbcTemplate.query(
+                "SELECT id, student_id, class_id, attendance_date, status FROM attendance WHERE " + column + " = ?",
+                (rs, i) -> {
+                    Attendance a = new Attendance();
+                    a.setId(rs.getInt(1));
+                    a.setStudentId(rs.getInt(2));
+                    a.setClassId(rs.getInt(3));
+                    a.setAttendanceDate(rs.getDate(4).toLocalDate());
+                    a.setStatus(Attendance.AttendanceStatus.valueOf(rs.getString(5)));
+                    return a;
+                }, parentId);
+        List<Grade> grades = jdbcTemplate.query(
+                "SELECT id, student_id, class_id, course_name, semester, exam_date, score, full_score FROM grades WHERE "
+                        + column + " = ?",
+                (rs, i) -> {
+                    Grade g = new Grade();
+                    g.setId(rs.getInt(1));
+                    g.setStudentId(rs.getInt(2));
+                    g.setClassId(rs.getInt(3));
+                    g.setCourseName(rs.getString(4));
+                    g.setSemester(rs.getString(5));
+                    Date examDate = rs.getDate(6);
+                    g.setExamDate(examDate != null ? examDate.toLocalDate() : null);
+                    g.setScore(rs.getBigDecimal(7));
+                    g.setFullScore(rs.getBigDecimal(8));
+                    return g;
+                }, parentId);
+        return new CascadeDeleteEvent(parentType, parentId, attendance, grades, scheduleIds);
+    }
+}
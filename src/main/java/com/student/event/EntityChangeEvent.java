@@ -0,0 +1,64 @@
+package com.student.event;
+
+import org.springframework.beans.BeanUtils;
+
+/**
+ * 实体变更事件，由各业务 Service 在新增、修改、删除后发布
+ * <p>
+ * before 为变更前的快照（新增时为 null），after 为变更后的实体（删除时为 null）。
+ */
+public class EntityChangeEvent {
+    private final Object before;
+    private final Object after;
+
+    private EntityChangeEvent(Object before, Object after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public static EntityChangeEvent created(Object after) {
+        return new EntityChangeEvent(null, after);
+    }
+
+    public static EntityChangeEvent updated(Object before, Object after) {
+        return new EntityChangeEvent(before, after);
+    }
+
+    public static EntityChangeEvent deleted(Object before) {
+        return new EntityChangeEvent(before, null);
+    }
+
+    /**
+     * 复制一份实体快照，用于在修改托管实体前保留旧值
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T snapshot(T source) {
+        T copy = (T) BeanUtils.instantiateClass(source.getClass());
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    public java.lang.Class<?> getEntityType() {
+        return after != null ? after.getClass() : before.getClass();
+    }
+
+    public boolean isAbout(java.lang.Class<?> type) {
+        return type.isAssignableFrom(getEntityType());
+    }
+
+    public <T> T getBefore(java.lang.Class<T> type) {
+        return type.isInstance(before) ? type.cast(before) : null;
+    }
+
+    public <T> T getAfter(java.lang.Class<T> type) {
+        return type.isInstance(after) ? type.cast(after) : null;
+    }
+
+    public boolean isCreate() {
+        return before == null;
+    }
+
+    public boolean isDelete() {
+        return after == null;
+    }
+}
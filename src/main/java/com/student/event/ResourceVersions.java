@@ -0,0 +1,130 @@
+package com.student.event;
+
+import com.student.entity.Attendance;
+import com.student.entity.Class;
+import com.student.entity.Grade;
+import com.student.entity.Schedule;
+import com.student.entity.Student;
+import com.student.entity.Todo;
+import com.student.statistics.OverviewCounters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 被轮询资源的版本号，用于条件 GET（ETag / Last-Modified）
+ * <p>
+ * 每类实体一个写入计数，写入提交后加一；资源的版本为其依赖实体计数之和，只增不减，
+ * 无需查询数据库即可判断内容是否变化。ETag 带上进程启动标识，重启后客户端会重新获取一次。
+ * 其他实例或直接改库的写入不经过本进程，由定时任务按各表的行数与 max(updated_at) 发现后补记。
+ * 同一版本有 JSON/CBOR/Smile 及压缩与否多种表示，所以使用弱 ETag（Tomcat 也不压缩带强 ETag 的响应）。
+ */
+@Component
+public class ResourceVersions {
+    public static final String CLASSES = "classes";
+    public static final String CLASS_HIERARCHY = "class-hierarchy";
+    public static final String STUDENTS = "students";
+    public static final String SCHEDULES = "schedules";
+    public static final String OVERVIEW = "overview";
+
+    /**
+     * 资源依赖的实体：班级列表含学生人数，学生/课表列表含班级名称，概览由各表计数组成
+     */
+    private static final Map<String, List<java.lang.Class<?>>> DEPENDENCIES = new HashMap<>();
+
+    /** 实体对应的表，用于检查本进程之外的写入 */
+    private static final Map<java.lang.Class<?>, String> TABLES = new LinkedHashMap<>();
+
+    static {
+        DEPENDENCIES.put(CLASSES, Arrays.asList(Class.class, Student.class));
+        DEPENDENCIES.put(CLASS_HIERARCHY, Collections.singletonList(Class.class));
+        DEPENDENCIES.put(STUDENTS, Arrays.asList(Student.class, Class.class));
+        DEPENDENCIES.put(SCHEDULES, Arrays.asList(Schedule.class, Class.class));
+        DEPENDENCIES.put(OVERVIEW, Arrays.asList(Todo.class, Attendance.class, Grade.class, Student.class,
+                Class.class, OverviewCounters.class));
+
+        TABLES.put(Class.class, "classes");
+        TABLES.put(Student.class, "students");
+        TABLES.put(Schedule.class, "schedules");
+        TABLES.put(Todo.class, "todos");
+        TABLES.put(Attendance.class, "attendance");
+        TABLES.put(Grade.class, "grades");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<java.lang.Class<?>, AtomicLong> writes = new ConcurrentHashMap<>();
+    private final Map<java.lang.Class<?>, AtomicLong> modifiedAt = new ConcurrentHashMap<>();
+    private final Map<java.lang.Class<?>, String> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * 在 AFTER_COMPLETION 阶段加一，保证晚于各缓存/计数器的 AFTER_COMMIT 更新：
+     * 客户端拿到新 ETag 时内存中的内容一定已经是新的（回滚时多加一次只会让客户端多取一次）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        touch(event.getEntityType());
+    }
+
+    /**
+     * 记录一次不经过 EntityChangeEvent 的数据变化（如对账修正）
+     */
+    public void touch(java.lang.Class<?> type) {
+        modifiedAt.computeIfAbsent(type, k -> new AtomicLong()).accumulateAndGet(System.currentTimeMillis(), Math::max);
+        writes.computeIfAbsent(type, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * 定时比对各表的行数与 max(updated_at)，变化时记一次写入：其他实例、直接改库的增删改在一个周期内反映到 ETag。
+     * 本进程的写入会在这里再记一次，只会让客户端多取一次；
+     * 同一秒内晚于上次检查、又未改变行数和最大时间戳的修改要等到下一次变化才会被发现
+     */
+    @Scheduled(initialDelayString = "${conditional-get.db-check-interval-ms:10000}",
+            fixedDelayString = "${conditional-get.db-check-interval-ms:10000}")
+    public void checkDatabase() {
+        for (Map.Entry<java.lang.Class<?>, String> e : TABLES.entrySet()) {
+            String fingerprint = jdbcTemplate.queryForObject("SELECT COUNT(*), MAX(updated_at) FROM " + e.getValue(),
+                    (rs, i) -> rs.getLong(1) + "/" + rs.getTimestamp(2));
+            String previous = fingerprints.put(e.getKey(), fingerprint);
+            if (previous != null && !previous.equals(fingerprint)) {
+                touch(e.getKey());
+            }
+        }
+    }
+
+    public String etag(String resource) {
+        long version = 0;
+        for (java.lang.Class<?> type : dependencies(resource)) {
+            AtomicLong count = writes.get(type);
+            version += count != null ? count.get() : 0;
+        }
+        return "W/\"" + resource + "-" + bootId + "-" + version + "\"";
+    }
+
+    public long lastModified(String resource) {
+        long latest = startedAt;
+        for (java.lang.Class<?> type : dependencies(resource)) {
+            AtomicLong at = modifiedAt.get(type);
+            if (at != null) latest = Math.max(latest, at.get());
+        }
+        return latest;
+    }
+
+    private static List<java.lang.Class<?>> dependencies(String resource) {
+        List<java.lang.Class<?>> types = DEPENDENCIES.get(resource);
+        if (types == null) {
+            throw new IllegalArgumentException("未知资源: " + resource);
+        }
+        return types;
+    }
+}
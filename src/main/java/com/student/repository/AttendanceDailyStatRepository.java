@@ -0,0 +1,70 @@
+package com.student.repository;
+
+import com.student.dto.DailyStatusCount;
+import com.student.entity.AttendanceDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AttendanceDailyStatRepository extends JpaRepository<AttendanceDailyStat, Integer> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "attendance_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO attendance_daily_stats (stat_date, class_id, status, total) " +
+            "VALUES (:statDate, :classId, :status, :delta) " +
+            "ON DUPLICATE KEY UPDATE total = total + :delta", nativeQuery = true)
+    int addTotal(@Param("statDate") LocalDate statDate,
+                 @Param("classId") Integer classId,
+                 @Param("status") String status,
+                 @Param("delta") long delta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "attendance_daily_stats"))
+    @Transactional
+    @Query(value = "DELETE FROM attendance_daily_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "attendance_daily_stats"))
+    @Transactional
+    @Query(value = "DELETE FROM attendance_daily_stats WHERE class_id = :classId", nativeQuery = true)
+    int deleteByClassId(@Param("classId") Integer classId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "attendance_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO attendance_daily_stats (stat_date, class_id, status, total) " +
+            "SELECT attendance_date, class_id, status, COUNT(*) FROM attendance " +
+            "GROUP BY attendance_date, class_id, status", nativeQuery = true)
+    int rebuildFromAttendance();
+
+    @Query("SELECT d.statDate AS statDate, d.status AS status, SUM(d.total) AS total " +
+            "FROM AttendanceDailyStat d JOIN Class c ON d.classId = c.id " +
+            "WHERE d.statDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY d.statDate, d.status")
+    List<DailyStatusCount> sumByDateAndStatus(@Param("startDate") LocalDate startDate,
+                                              @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT d.statDate AS statDate, d.status AS status, SUM(d.total) AS total " +
+            "FROM AttendanceDailyStat d JOIN Class c ON d.classId = c.id " +
+            "WHERE (:startDate IS NULL OR d.statDate >= :startDate) " +
+            "AND (:endDate IS NULL OR d.statDate <= :endDate) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY d.statDate, d.status")
+    List<DailyStatusCount> sumByDateAndStatusForClasses(@Param("startDate") LocalDate startDate,
+                                                        @Param("endDate") LocalDate endDate,
+                                                        @Param("grade") String grade,
+                                                        @Param("department") String department,
+                                                        @Param("classId") Integer classId);
+}
@@ -1,7 +1,10 @@
 package com.student.repository;
 
+import com.student.dto.AttendanceCountRow;
+import com.student.dto.AttendanceStatusCount;
 import com.student.entity.Attendance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,12 +12,32 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Repository
-public interface AttendanceRepository extends JpaRepository<Attendance, Integer> {
+public interface AttendanceRepository extends JpaRepository<Attendance, Integer>, JpaSpecificationExecutor<Attendance> {
     List<Attendance> findByStudentId(Integer studentId);
     List<Attendance> findByClassId(Integer classId);
     List<Attendance> findByStatus(Attendance.AttendanceStatus status);
     List<Attendance> findByAttendanceDateBetween(LocalDate startDate, LocalDate endDate);
     List<Attendance> findByCourseNameContaining(String courseName);
+    List<Attendance> findByClassIdAndAttendanceDateAndCourseName(Integer classId, LocalDate attendanceDate, String courseName);
+
+    @Query("SELECT a.status AS status, c.grade AS grade, c.department AS department, COUNT(a) AS total " +
+            "FROM Attendance a JOIN Class c ON a.classId = c.id " +
+            "WHERE (:startDate IS NULL OR a.attendanceDate >= :startDate) " +
+            "AND (:endDate IS NULL OR a.attendanceDate <= :endDate) " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY a.status, c.grade, c.department")
+    List<AttendanceCountRow> countByStatusGradeDepartment(@Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate,
+                                                          @Param("status") Attendance.AttendanceStatus status,
+                                                          @Param("grade") String grade,
+                                                          @Param("department") String department,
+                                                          @Param("classId") Integer classId);
+
+    @Query("SELECT a.status AS status, COUNT(a) AS total FROM Attendance a GROUP BY a.status")
+    List<AttendanceStatusCount> countGroupByStatus();
 }
 
 
@@ -0,0 +1,54 @@
+package com.student.repository;
+
+import com.student.entity.Attendance;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+import static com.student.statistics.StatisticsSupport.parseEnum;
+
+/**
+ * 考勤列表的动态查询条件
+ */
+public final class AttendanceSpecifications {
+
+    private AttendanceSpecifications() {
+    }
+
+    /**
+     * 按列表接口参数组合条件，参数为空的条件不生效；课程名为包含匹配
+     */
+    public static Specification<Attendance> filter(Integer studentId, Integer classId, String status,
+                                                   LocalDate startDate, LocalDate endDate, String courseName) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (studentId != null) {
+                predicates.add(cb.equal(root.get("studentId"), studentId));
+            }
+            if (classId != null) {
+                predicates.add(cb.equal(root.get("classId"), classId));
+            }
+            if (status != null) {
+                Attendance.AttendanceStatus statusValue = parseEnum(Attendance.AttendanceStatus.class, status);
+                if (statusValue == null) {
+                    return cb.disjunction();
+                }
+                predicates.add(cb.equal(root.get("status"), statusValue));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("attendanceDate"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("attendanceDate"), endDate));
+            }
+            if (courseName != null) {
+                predicates.add(cb.like(root.get("courseName"), containsPattern(courseName), '\\'));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
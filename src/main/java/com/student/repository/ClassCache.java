@@ -0,0 +1,136 @@
+package com.student.repository;
+
+import com.student.entity.Class;
+import com.student.event.EntityChangeEvent;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * 班级参考数据的进程内缓存（名称、年级、部门）
+ * <p>
+ * 读取只访问一份不可变快照，无锁；班级增删改提交后复制一份新快照整体替换，不回查数据库。
+ * 学生人数会随学生增删频繁变化，不在缓存中，需要时仍从数据库读取。
+ */
+@Component
+public class ClassCache {
+    @Autowired
+    private ClassRepository classRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 按 ID 取班级，不存在时返回 null
+     */
+    public ClassInfo get(Integer id) {
+        return id != null ? current().byId.get(id) : null;
+    }
+
+    /**
+     * 全部班级，按 ID 排序，不可修改
+     */
+    public Map<Integer, ClassInfo> all() {
+        return current().byId;
+    }
+
+    /**
+     * 年级 -> 部门 -> 班级 的层级，按名称排序
+     */
+    public List<Map<String, Object>> hierarchy() {
+        return current().hierarchy;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onEntityChange(EntityChangeEvent event) {
+        if (!event.isAbout(Class.class) || snapshot == null) {
+            return;
+        }
+        Map<Integer, ClassInfo> classes = new TreeMap<>(snapshot.byId);
+        Class before = event.getBefore(Class.class);
+        Class after = event.getAfter(Class.class);
+        if (before != null) {
+            classes.remove(before.getId());
+        }
+        if (after != null) {
+            classes.put(after.getId(), ClassInfo.of(after));
+        }
+        snapshot = new Snapshot(classes);
+    }
+
+    /**
+     * 定时全量重载，兜底修正绕过 ClassService 的写入
+     */
+    @Scheduled(initialDelayString = "${classes.cache.refresh-interval-ms:3600000}",
+            fixedDelayString = "${classes.cache.refresh-interval-ms:3600000}")
+    public synchronized void reload() {
+        Map<Integer, ClassInfo> classes = new TreeMap<>();
+        for (Class c : classRepository.findAll()) {
+            classes.put(c.getId(), ClassInfo.of(c));
+        }
+        snapshot = new Snapshot(classes);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    @Value
+    public static class ClassInfo {
+        Integer id;
+        String className;
+        String grade;
+        String department;
+        Integer teacherId;
+
+        static ClassInfo of(Class c) {
+            return new ClassInfo(c.getId(), c.getClassName(), c.getGrade(), c.getDepartment(), c.getTeacherId());
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<Integer, ClassInfo> byId;
+        final List<Map<String, Object>> hierarchy;
+
+        Snapshot(Map<Integer, ClassInfo> classes) {
+            this.byId = Collections.unmodifiableMap(classes);
+            Comparator<String> names = Comparator.nullsFirst(Comparator.naturalOrder());
+            Map<String, Map<String, List<ClassInfo>>> tree = new TreeMap<>(names);
+            for (ClassInfo c : classes.values()) {
+                tree.computeIfAbsent(c.getGrade(), k -> new TreeMap<>(names))
+                        .computeIfAbsent(c.getDepartment(), k -> new ArrayList<>())
+                        .add(c);
+            }
+            List<Map<String, Object>> grades = new ArrayList<>();
+            for (Map.Entry<String, Map<String, List<ClassInfo>>> g : tree.entrySet()) {
+                List<Map<String, Object>> departments = new ArrayList<>();
+                for (Map.Entry<String, List<ClassInfo>> d : g.getValue().entrySet()) {
+                    List<ClassInfo> list = d.getValue();
+                    list.sort(Comparator.comparing(ClassInfo::getClassName, names).thenComparing(ClassInfo::getId));
+                    Map<String, Object> department = new LinkedHashMap<>();
+                    department.put("department", d.getKey());
+                    department.put("classes", Collections.unmodifiableList(list));
+                    departments.add(Collections.unmodifiableMap(department));
+                }
+                Map<String, Object> grade = new LinkedHashMap<>();
+                grade.put("grade", g.getKey());
+                grade.put("departments", Collections.unmodifiableList(departments));
+                grades.add(Collections.unmodifiableMap(grade));
+            }
+            this.hierarchy = Collections.unmodifiableList(grades);
+        }
+    }
+}
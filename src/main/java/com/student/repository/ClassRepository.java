@@ -2,14 +2,59 @@ package com.student.repository;
 
 import com.student.entity.Class;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ClassRepository extends JpaRepository<Class, Integer> {
     List<Class> findByGrade(String grade);
     List<Class> findByDepartment(String department);
     List<Class> findByClassNameContaining(String className);
+
+    /**
+     * 加行锁读取班级（SELECT ... FOR UPDATE），用于串行化同一班级的整班写入
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Class c WHERE c.id = :id")
+    Optional<Class> findByIdForUpdate(@Param("id") Integer id);
+
+    /**
+     * 按学生表重新计算这些班级的学生人数，一条语句完成
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "classes"))
+    @Transactional
+    @Query(value = "UPDATE classes c SET student_count = (SELECT COUNT(*) FROM students s WHERE s.class_id = c.id) " +
+            "WHERE c.id IN (:classIds)", nativeQuery = true)
+    int recountStudents(@Param("classIds") Collection<Integer> classIds);
+
+    /**
+     * 原子地增减班级学生人数（student_count = student_count + delta），不读取班级实体
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "classes"))
+    @Transactional
+    @Query(value = "UPDATE classes SET student_count = COALESCE(student_count, 0) + :delta WHERE id = :id",
+            nativeQuery = true)
+    int adjustStudentCount(@Param("id") Integer id, @Param("delta") int delta);
+
+    /**
+     * 学生人数与学生表不一致的班级，一条分组 COUNT 完成比对，不加锁
+     */
+    @Query(value = "SELECT c.id FROM classes c LEFT JOIN (SELECT class_id, COUNT(*) AS total FROM students " +
+            "GROUP BY class_id) s ON s.class_id = c.id " +
+            "WHERE COALESCE(c.student_count, -1) <> COALESCE(s.total, 0)", nativeQuery = true)
+    List<Integer> findStudentCountDrift();
 }
 
 
@@ -0,0 +1,38 @@
+package com.student.repository;
+
+import com.student.entity.Class;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+
+/**
+ * 班级列表的动态查询条件
+ */
+public final class ClassSpecifications {
+
+    private ClassSpecifications() {
+    }
+
+    /**
+     * 按列表接口参数组合条件，参数为空的条件不生效；年级、院系精确匹配，班级名为包含匹配
+     */
+    public static Specification<Class> filter(String grade, String department, String className) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (grade != null) {
+                predicates.add(cb.equal(root.get("grade"), grade));
+            }
+            if (department != null) {
+                predicates.add(cb.equal(root.get("department"), department));
+            }
+            if (className != null) {
+                predicates.add(cb.like(root.get("className"), containsPattern(className), '\\'));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
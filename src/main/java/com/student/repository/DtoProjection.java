@@ -0,0 +1,186 @@
+package com.student.repository;
+
+import javax.persistence.criteria.*;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 直接查询到 DTO 的投影：只选择 DTO 需要的列，结果不进入持久化上下文
+ * <p>
+ * 关联表以额外的根加入查询，由连接条件关联（实体间没有映射关联）；
+ * 外键都是 NOT NULL 且有约束，内连接与原先逐条补全名称的结果一致。
+ * 每列有一个输出字段名（与 DTO 的下划线字段名一致），{@link #fields(String)} 按字段名只选择部分列。
+ */
+public final class DtoProjection<T, R> implements ListProjection<T, R> {
+    private static final String ID = "id";
+
+    private final Supplier<R> factory;
+    private final String rootAlias;
+    private final Joins<T> joins;
+    private final List<Column<R>> columns = new ArrayList<>();
+    private final Map<String, Column<R>> byName = new LinkedHashMap<>();
+
+    private DtoProjection(Supplier<R> factory, String rootAlias, Joins<T> joins) {
+        this.factory = factory;
+        this.rootAlias = rootAlias;
+        this.joins = joins;
+    }
+
+    /**
+     * @param rootAlias 主表在 froms 中的别名
+     * @param joins     加入关联表的根，返回 别名 -> 根（含主表）
+     */
+    public static <T, R> DtoProjection<T, R> of(Supplier<R> factory, String rootAlias, Joins<T> joins) {
+        return new DtoProjection<>(factory, rootAlias, joins);
+    }
+
+    public static Map<String, From<?, ?>> froms(Object... aliasAndFrom) {
+        Map<String, From<?, ?>> m = new HashMap<>();
+        for (int i = 0; i < aliasAndFrom.length; i += 2) {
+            m.put((String) aliasAndFrom[i], (From<?, ?>) aliasAndFrom[i + 1]);
+        }
+        return m;
+    }
+
+    /**
+     * 选择 from 表的 attribute 列并写入 DTO，字段名为属性名的下划线形式
+     */
+    public <V> DtoProjection<T, R> column(String from, String attribute, BiConsumer<R, V> setter) {
+        return column(snakeCase(attribute), from, attribute, setter);
+    }
+
+    /**
+     * 字段名与属性名不对应时（如关联表的 name 对应 student_name）显式指定字段名
+     */
+    @SuppressWarnings("unchecked")
+    public <V> DtoProjection<T, R> column(String name, String from, String attribute, BiConsumer<R, V> setter) {
+        return add(new Column<>(name, from, attribute, Function.identity(), (BiConsumer<R, Object>) setter));
+    }
+
+    /**
+     * 枚举列，按名称写入 DTO 的字符串字段
+     */
+    @SuppressWarnings("unchecked")
+    public DtoProjection<T, R> enumColumn(String from, String attribute, BiConsumer<R, String> setter) {
+        return add(new Column<>(snakeCase(attribute), from, attribute, v -> v != null ? ((Enum<?>) v).name() : null,
+                (BiConsumer<R, Object>) (BiConsumer<R, ?>) setter));
+    }
+
+    /**
+     * 只选择 fields（逗号分隔的字段名）对应的列，每行转换为 字段名 -> 值 的 Map，字段顺序与请求一致；
+     * id 总是包含在内。未选择关联表的列时不连接关联表。
+     *
+     * @throws IllegalArgumentException 含有不支持的字段名时
+     */
+    public ListProjection<T, Map<String, Object>> fields(String fields) {
+        Map<String, Column<R>> selected = new LinkedHashMap<>();
+        selected.put(ID, byName.get(ID));
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Column<R> column = byName.get(name);
+            if (column == null) {
+                throw new IllegalArgumentException("不支持的字段: " + name + "，可选字段: " + String.join(",", byName.keySet()));
+            }
+            selected.put(name, column);
+        }
+        List<Column<R>> subset = new ArrayList<>(selected.values());
+        return new ListProjection<T, Map<String, Object>>() {
+            @Override
+            public List<Selection<?>> select(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                             List<Predicate> joinConditions) {
+                return selections(subset, root, query, cb, joinConditions);
+            }
+
+            @Override
+            public Map<String, Object> map(Object[] row) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                for (int i = 0; i < subset.size(); i++) {
+                    Column<R> column = subset.get(i);
+                    item.put(column.name, column.value.apply(row[i]));
+                }
+                return item;
+            }
+        };
+    }
+
+    /**
+     * fields 为空时返回完整的 DTO 投影本身，否则同 {@link #fields(String)}
+     */
+    public ListProjection<T, ?> narrow(String fields) {
+        return fields == null || fields.trim().isEmpty() ? this : fields(fields);
+    }
+
+    @Override
+    public List<Selection<?>> select(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                     List<Predicate> joinConditions) {
+        return selections(columns, root, query, cb, joinConditions);
+    }
+
+    @Override
+    public R map(Object[] row) {
+        R dto = factory.get();
+        for (int i = 0; i < columns.size(); i++) {
+            Column<R> column = columns.get(i);
+            column.setter.accept(dto, column.value.apply(row[i]));
+        }
+        return dto;
+    }
+
+    private DtoProjection<T, R> add(Column<R> column) {
+        columns.add(column);
+        byName.put(column.name, column);
+        return this;
+    }
+
+    private List<Selection<?>> selections(List<Column<R>> selected, Root<T> root, CriteriaQuery<?> query,
+                                          CriteriaBuilder cb, List<Predicate> joinConditions) {
+        boolean rootOnly = selected.stream().allMatch(c -> c.from.equals(rootAlias));
+        Map<String, From<?, ?>> froms = rootOnly
+                ? Collections.singletonMap(rootAlias, root)
+                : joins.join(root, query, cb, joinConditions);
+        List<Selection<?>> selections = new ArrayList<>();
+        for (Column<R> column : selected) {
+            selections.add(froms.get(column.from).get(column.attribute));
+        }
+        return selections;
+    }
+
+    private static String snakeCase(String attribute) {
+        StringBuilder name = new StringBuilder(attribute.length() + 4);
+        for (char ch : attribute.toCharArray()) {
+            if (Character.isUpperCase(ch)) {
+                name.append('_').append(Character.toLowerCase(ch));
+            } else {
+                name.append(ch);
+            }
+        }
+        return name.toString();
+    }
+
+    @FunctionalInterface
+    public interface Joins<T> {
+        Map<String, From<?, ?>> join(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, List<Predicate> on);
+    }
+
+    private static final class Column<R> {
+        final String name;
+        final String from;
+        final String attribute;
+        final Function<Object, Object> value;
+        final BiConsumer<R, Object> setter;
+
+        Column(String name, String from, String attribute, Function<Object, Object> value,
+               BiConsumer<R, Object> setter) {
+            this.name = name;
+            this.from = from;
+            this.attribute = attribute;
+            this.value = value;
+            this.setter = setter;
+        }
+    }
+}
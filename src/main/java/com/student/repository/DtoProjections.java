@@ -0,0 +1,141 @@
+package com.student.repository;
+
+import com.student.dto.*;
+import com.student.entity.Attendance;
+import com.student.entity.Class;
+import com.student.entity.Grade;
+import com.student.entity.Schedule;
+import com.student.entity.Student;
+import com.student.entity.StudentRecord;
+
+import javax.persistence.criteria.Root;
+
+import static com.student.repository.DtoProjection.froms;
+
+/**
+ * 各列表接口的 DTO 投影，学生/班级名称在同一条 SQL 中连接查询
+ */
+public final class DtoProjections {
+
+    private DtoProjections() {
+    }
+
+    public static final DtoProjection<Student, StudentWithClassDTO> STUDENT =
+            DtoProjection.<Student, StudentWithClassDTO>of(StudentWithClassDTO::new, "s", (root, query, cb, on) -> {
+                Root<Class> c = query.from(Class.class);
+                on.add(cb.equal(c.get("id"), root.get("classId")));
+                return froms("s", root, "c", c);
+            })
+                    .column("s", "id", StudentWithClassDTO::setId)
+                    .column("s", "studentNo", StudentWithClassDTO::setStudent_no)
+                    .column("s", "name", StudentWithClassDTO::setName)
+                    .enumColumn("s", "gender", StudentWithClassDTO::setGender)
+                    .column("s", "birthDate", StudentWithClassDTO::setBirth_date)
+                    .column("s", "phone", StudentWithClassDTO::setPhone)
+                    .column("s", "email", StudentWithClassDTO::setEmail)
+                    .column("s", "address", StudentWithClassDTO::setAddress)
+                    .column("s", "classId", StudentWithClassDTO::setClass_id)
+                    .column("s", "enrollmentDate", StudentWithClassDTO::setEnrollment_date)
+                    .enumColumn("s", "status", StudentWithClassDTO::setStatus)
+                    .column("s", "createdAt", StudentWithClassDTO::setCreated_at)
+                    .column("s", "updatedAt", StudentWithClassDTO::setUpdated_at)
+                    .column("c", "className", StudentWithClassDTO::setClass_name)
+                    .column("c", "grade", StudentWithClassDTO::setGrade)
+                    .column("c", "department", StudentWithClassDTO::setDepartment);
+
+    public static final DtoProjection<Attendance, AttendanceDTO> ATTENDANCE =
+            DtoProjection.<Attendance, AttendanceDTO>of(AttendanceDTO::new, "a", (root, query, cb, on) -> {
+                Root<Student> s = query.from(Student.class);
+                Root<Class> c = query.from(Class.class);
+                on.add(cb.equal(s.get("id"), root.get("studentId")));
+                on.add(cb.equal(c.get("id"), root.get("classId")));
+                return froms("a", root, "s", s, "c", c);
+            })
+                    .column("a", "id", AttendanceDTO::setId)
+                    .column("a", "studentId", AttendanceDTO::setStudent_id)
+                    .column("a", "classId", AttendanceDTO::setClass_id)
+                    .column("a", "attendanceDate", AttendanceDTO::setAttendance_date)
+                    .enumColumn("a", "status", AttendanceDTO::setStatus)
+                    .column("a", "courseName", AttendanceDTO::setCourse_name)
+                    .column("a", "remark", AttendanceDTO::setRemark)
+                    .column("a", "createdAt", AttendanceDTO::setCreated_at)
+                    .column("a", "updatedAt", AttendanceDTO::setUpdated_at)
+                    .column("student_name", "s", "name", AttendanceDTO::setStudent_name)
+                    .column("s", "studentNo", AttendanceDTO::setStudent_no)
+                    .column("c", "className", AttendanceDTO::setClass_name)
+                    .column("c", "grade", AttendanceDTO::setGrade);
+
+    public static final DtoProjection<Grade, GradeDTO> GRADE =
+            DtoProjection.<Grade, GradeDTO>of(GradeDTO::new, "g", (root, query, cb, on) -> {
+                Root<Student> s = query.from(Student.class);
+                Root<Class> c = query.from(Class.class);
+                on.add(cb.equal(s.get("id"), root.get("studentId")));
+                on.add(cb.equal(c.get("id"), root.get("classId")));
+                return froms("g", root, "s", s, "c", c);
+            })
+                    .column("g", "id", GradeDTO::setId)
+                    .column("g", "studentId", GradeDTO::setStudent_id)
+                    .column("g", "classId", GradeDTO::setClass_id)
+                    .column("g", "courseName", GradeDTO::setCourse_name)
+                    .column("g", "examType", GradeDTO::setExam_type)
+                    .column("g", "score", GradeDTO::setScore)
+                    .column("g", "fullScore", GradeDTO::setFull_score)
+                    .column("g", "semester", GradeDTO::setSemester)
+                    .column("g", "academicYear", GradeDTO::setAcademic_year)
+                    .column("g", "examDate", GradeDTO::setExam_date)
+                    .column("g", "remark", GradeDTO::setRemark)
+                    .column("g", "createdAt", GradeDTO::setCreated_at)
+                    .column("g", "updatedAt", GradeDTO::setUpdated_at)
+                    .column("student_name", "s", "name", GradeDTO::setStudent_name)
+                    .column("s", "studentNo", GradeDTO::setStudent_no)
+                    .column("c", "className", GradeDTO::setClass_name)
+                    .column("c", "grade", GradeDTO::setGrade);
+
+    public static final DtoProjection<Schedule, ScheduleDTO> SCHEDULE =
+            DtoProjection.<Schedule, ScheduleDTO>of(ScheduleDTO::new, "sc", (root, query, cb, on) -> {
+                Root<Class> c = query.from(Class.class);
+                on.add(cb.equal(c.get("id"), root.get("classId")));
+                return froms("sc", root, "c", c);
+            })
+                    .column("sc", "id", ScheduleDTO::setId)
+                    .column("sc", "classId", ScheduleDTO::setClass_id)
+                    .column("sc", "courseName", ScheduleDTO::setCourse_name)
+                    .column("sc", "teacherName", ScheduleDTO::setTeacher_name)
+                    .column("sc", "dayOfWeek", ScheduleDTO::setDay_of_week)
+                    .column("sc", "startTime", ScheduleDTO::setStart_time)
+                    .column("sc", "endTime", ScheduleDTO::setEnd_time)
+                    .column("sc", "classroom", ScheduleDTO::setClassroom)
+                    .column("sc", "semester", ScheduleDTO::setSemester)
+                    .column("sc", "academicYear", ScheduleDTO::setAcademic_year)
+                    .column("sc", "createdAt", ScheduleDTO::setCreated_at)
+                    .column("sc", "updatedAt", ScheduleDTO::setUpdated_at)
+                    .column("c", "className", ScheduleDTO::setClass_name)
+                    .column("c", "grade", ScheduleDTO::setGrade)
+                    .column("c", "department", ScheduleDTO::setDepartment);
+
+    public static final DtoProjection<StudentRecord, StudentRecordDTO> RECORD =
+            DtoProjection.<StudentRecord, StudentRecordDTO>of(StudentRecordDTO::new, "r", (root, query, cb, on) -> {
+                Root<Student> s = query.from(Student.class);
+                Root<Class> c = query.from(Class.class);
+                on.add(cb.equal(s.get("id"), root.get("studentId")));
+                on.add(cb.equal(c.get("id"), s.get("classId")));
+                return froms("r", root, "s", s, "c", c);
+            })
+                    .column("r", "id", StudentRecordDTO::setId)
+                    .column("r", "studentId", StudentRecordDTO::setStudent_id)
+                    .column("r", "idCard", StudentRecordDTO::setId_card)
+                    .column("r", "nationality", StudentRecordDTO::setNationality)
+                    .column("r", "ethnicity", StudentRecordDTO::setEthnicity)
+                    .column("r", "politicalStatus", StudentRecordDTO::setPolitical_status)
+                    .column("r", "healthStatus", StudentRecordDTO::setHealth_status)
+                    .column("r", "guardianName", StudentRecordDTO::setGuardian_name)
+                    .column("r", "guardianPhone", StudentRecordDTO::setGuardian_phone)
+                    .column("r", "previousSchool", StudentRecordDTO::setPrevious_school)
+                    .enumColumn("r", "recordStatus", StudentRecordDTO::setRecord_status)
+                    .column("r", "createdAt", StudentRecordDTO::setCreated_at)
+                    .column("r", "updatedAt", StudentRecordDTO::setUpdated_at)
+                    .column("student_name", "s", "name", StudentRecordDTO::setStudent_name)
+                    .column("s", "studentNo", StudentRecordDTO::setStudent_no)
+                    .column("c", "className", StudentRecordDTO::setClass_name)
+                    .column("c", "grade", StudentRecordDTO::setGrade);
+}
@@ -0,0 +1,72 @@
+package com.student.repository;
+
+import com.student.dto.DailyScoreSummary;
+import com.student.entity.GradeDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface GradeDailyStatRepository extends JpaRepository<GradeDailyStat, Integer> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "grade_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO grade_daily_stats (stat_date, class_id, total, score_count, score_sum) " +
+            "VALUES (:statDate, :classId, :total, :scoreCount, :scoreSum) " +
+            "ON DUPLICATE KEY UPDATE total = total + :total, score_count = score_count + :scoreCount, " +
+            "score_sum = score_sum + :scoreSum", nativeQuery = true)
+    int addTotals(@Param("statDate") LocalDate statDate,
+                  @Param("classId") Integer classId,
+                  @Param("total") long total,
+                  @Param("scoreCount") long scoreCount,
+                  @Param("scoreSum") BigDecimal scoreSum);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "grade_daily_stats"))
+    @Transactional
+    @Query(value = "DELETE FROM grade_daily_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "grade_daily_stats"))
+    @Transactional
+    @Query(value = "DELETE FROM grade_daily_stats WHERE class_id = :classId", nativeQuery = true)
+    int deleteByClassId(@Param("classId") Integer classId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "grade_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO grade_daily_stats (stat_date, class_id, total, score_count, score_sum) " +
+            "SELECT exam_date, class_id, COUNT(*), COUNT(score), COALESCE(SUM(score), 0) FROM grades " +
+            "WHERE exam_date IS NOT NULL GROUP BY exam_date, class_id", nativeQuery = true)
+    int rebuildFromGrades();
+
+    @Query("SELECT d.statDate AS statDate, SUM(d.total) AS total, SUM(d.scoreCount) AS scoreCount, " +
+            "SUM(d.scoreSum) AS scoreSum FROM GradeDailyStat d JOIN Class c ON d.classId = c.id " +
+            "WHERE d.statDate BETWEEN :startDate AND :endDate GROUP BY d.statDate")
+    List<DailyScoreSummary> sumByDate(@Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT d.statDate AS statDate, SUM(d.total) AS total, SUM(d.scoreCount) AS scoreCount, " +
+            "SUM(d.scoreSum) AS scoreSum FROM GradeDailyStat d JOIN Class c ON d.classId = c.id " +
+            "WHERE (:startDate IS NULL OR d.statDate >= :startDate) " +
+            "AND (:endDate IS NULL OR d.statDate <= :endDate) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY d.statDate")
+    List<DailyScoreSummary> sumByDateForClasses(@Param("startDate") LocalDate startDate,
+                                                @Param("endDate") LocalDate endDate,
+                                                @Param("grade") String grade,
+                                                @Param("department") String department,
+                                                @Param("classId") Integer classId);
+}
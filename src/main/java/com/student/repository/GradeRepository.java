@@ -1,21 +1,61 @@
 package com.student.repository;
 
+import com.student.dto.GradeCountRow;
+import com.student.dto.GradeScoreRow;
+import com.student.dto.ScoreSummary;
 import com.student.entity.Grade;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface GradeRepository extends JpaRepository<Grade, Integer> {
+public interface GradeRepository extends JpaRepository<Grade, Integer>, JpaSpecificationExecutor<Grade> {
     List<Grade> findByStudentId(Integer studentId);
     List<Grade> findByClassId(Integer classId);
     List<Grade> findByCourseNameContaining(String courseName);
     List<Grade> findBySemester(String semester);
     List<Grade> findByAcademicYear(String academicYear);
     List<Grade> findByExamDateBetween(LocalDate startDate, LocalDate endDate);
+    List<Grade> findByStudentIdInAndCourseNameAndExamTypeAndSemester(Collection<Integer> studentIds, String courseName,
+                                                                      String examType, String semester);
+
+    @Query("SELECT c.grade AS grade, c.department AS department, COUNT(g) AS total, " +
+            "COUNT(g.score) AS scoreCount, SUM(g.score) AS scoreSum " +
+            "FROM Grade g JOIN Class c ON g.classId = c.id " +
+            "WHERE (:startDate IS NULL OR g.examDate >= :startDate) " +
+            "AND (:endDate IS NULL OR g.examDate <= :endDate) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY c.grade, c.department")
+    List<GradeCountRow> countByGradeDepartment(@Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate,
+                                               @Param("grade") String grade,
+                                               @Param("department") String department,
+                                               @Param("classId") Integer classId);
+
+    @Query("SELECT COUNT(g) AS total, COUNT(g.score) AS scoreCount, SUM(g.score) AS scoreSum FROM Grade g")
+    ScoreSummary summarizeScores();
+
+    @Query("SELECT g.courseName AS courseName, g.classId AS classId, g.semester AS semester, c.grade AS grade, " +
+            "g.score AS score, g.fullScore AS fullScore " +
+            "FROM Grade g LEFT JOIN Class c ON g.classId = c.id " +
+            "WHERE g.score IS NOT NULL " +
+            "AND (:courseName IS NULL OR g.courseName = :courseName) " +
+            "AND (:semester IS NULL OR g.semester = :semester) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR g.classId = :classId)")
+    List<GradeScoreRow> findScores(@Param("courseName") String courseName,
+                                   @Param("semester") String semester,
+                                   @Param("grade") String grade,
+                                   @Param("department") String department,
+                                   @Param("classId") Integer classId);
 }
 
 
@@ -0,0 +1,53 @@
+package com.student.repository;
+
+import com.student.entity.Grade;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+
+/**
+ * 成绩列表的动态查询条件
+ */
+public final class GradeSpecifications {
+
+    private GradeSpecifications() {
+    }
+
+    /**
+     * 按列表接口参数组合条件，参数为空的条件不生效；课程名为包含匹配，学期/学年为精确匹配
+     */
+    public static Specification<Grade> filter(Integer studentId, Integer classId, String courseName,
+                                              String semester, String academicYear,
+                                              LocalDate startDate, LocalDate endDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (studentId != null) {
+                predicates.add(cb.equal(root.get("studentId"), studentId));
+            }
+            if (classId != null) {
+                predicates.add(cb.equal(root.get("classId"), classId));
+            }
+            if (courseName != null) {
+                predicates.add(cb.like(root.get("courseName"), containsPattern(courseName), '\\'));
+            }
+            if (semester != null) {
+                predicates.add(cb.equal(root.get("semester"), semester));
+            }
+            if (academicYear != null) {
+                predicates.add(cb.equal(root.get("academicYear"), academicYear));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("examDate"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("examDate"), endDate));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
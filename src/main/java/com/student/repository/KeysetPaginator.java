@@ -0,0 +1,228 @@
+package com.student.repository;
+
+import com.student.common.KeysetPageRequest;
+import com.student.dto.CursorPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * 基于游标（keyset）的列表分页
+ * <p>
+ * 按 (排序字段, id) 稳定排序，下一页条件为 "排序字段, id" 严格位于上一页最后一行之后，
+ * 每页只多取一行判断是否还有下一页，不论翻到第几页都不扫描前面的行，也不执行 count。
+ * 查询可以返回实体，也可以通过 {@link ListProjection} 直接选择到 DTO。
+ * 排序字段为 NULL 的行按 MySQL 的规则排在升序的最前、降序的最后。
+ */
+@Component
+public class KeysetPaginator {
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pagination.default-size:50}")
+    private int defaultSize;
+
+    @Value("${pagination.max-size:500}")
+    private int maxSize;
+
+    /**
+     * 查询一页实体
+     *
+     * @param sortable 允许排序的实体属性，id 总是允许
+     * @param counter  仅在请求 total 时用于 count
+     */
+    public <T> CursorPage<T> page(java.lang.Class<T> type,
+                                  Specification<T> spec,
+                                  Set<String> sortable,
+                                  KeysetPageRequest request,
+                                  JpaSpecificationExecutor<T> counter) {
+        return page(type, spec, ListProjection.entity(), sortable, request, counter);
+    }
+
+    /**
+     * 查询一页，每行按 projection 选择列并转换
+     */
+    public <T, R> CursorPage<R> page(java.lang.Class<T> type,
+                                     Specification<T> spec,
+                                     ListProjection<T, R> projection,
+                                     Set<String> sortable,
+                                     KeysetPageRequest request,
+                                     JpaSpecificationExecutor<T> counter) {
+        String field = request.getSortField();
+        boolean desc = request.isDescending();
+        if (!ID.equals(field) && !sortable.contains(field)) {
+            throw new IllegalArgumentException("不支持的排序字段: " + field);
+        }
+        int size = request.getSize() != null ? Math.max(1, Math.min(maxSize, request.getSize())) : defaultSize;
+        Cursor cursor = request.getCursor() != null ? Cursor.decode(request.getCursor()) : null;
+        if (cursor != null && (!cursor.field.equals(field) || cursor.desc != desc)) {
+            throw new IllegalArgumentException("分页游标与排序方式不一致");
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>(projection.select(root, query, cb, predicates));
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        Path<Integer> id = root.get(ID);
+        Path<?> key = ID.equals(field) ? id : root.get(field);
+        if (cursor != null) {
+            predicates.add(after(cb, key, id, cursor, parseValue(key.getJavaType(), cursor.value), desc));
+        }
+        // 排序值与 id 附加在投影列之后，用于生成下一页游标
+        int keyIndex = selections.size();
+        selections.add(key);
+        selections.add(id);
+        query.multiselect(selections).where(predicates.toArray(new Predicate[0]));
+        List<Order> orders = new ArrayList<>();
+        if (key != id) {
+            orders.add(desc ? cb.desc(key) : cb.asc(key));
+        }
+        orders.add(desc ? cb.desc(id) : cb.asc(id));
+        query.orderBy(orders);
+
+        List<Object[]> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasMore = rows.size() > size;
+        int count = Math.min(size, rows.size());
+        List<R> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(projection.map(rows.get(i)));
+        }
+        String next = null;
+        if (hasMore) {
+            Object[] last = rows.get(count - 1);
+            Object lastValue = last[keyIndex];
+            next = new Cursor(field, desc, lastValue != null ? lastValue.toString() : null,
+                    (Integer) last[keyIndex + 1]).encode();
+        }
+        Long total = request.isWithTotal() ? counter.count(spec) : null;
+        return new CursorPage<>(items, next, hasMore, total);
+    }
+
+    /**
+     * 不分页的完整列表，与分页使用同一投影，按 id 排序；
+     * 结果超过 pagination.max-size 条时报错，要求调用方改用分页参数，避免一次读出整张表
+     */
+    public <T, R> List<R> list(java.lang.Class<T> type, Specification<T> spec, ListProjection<T, R> projection) {
+        List<R> items = query(type, spec, projection, maxSize + 1);
+        if (items.size() > maxSize) {
+            throw new IllegalArgumentException("结果超过 " + maxSize + " 条，请使用 size/cursor 分页查询");
+        }
+        return items;
+    }
+
+    /**
+     * 不限条数的完整列表，仅用于行数有限的基础数据（如班级）
+     */
+    public <T, R> List<R> listAll(java.lang.Class<T> type, Specification<T> spec, ListProjection<T, R> projection) {
+        return query(type, spec, projection, Integer.MAX_VALUE);
+    }
+
+    private <T, R> List<R> query(java.lang.Class<T> type, Specification<T> spec, ListProjection<T, R> projection,
+                                 int maxRows) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<T> root = query.from(type);
+        List<Predicate> predicates = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>(projection.select(root, query, cb, predicates));
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        // 保证至少两列，结果总是 Object[]
+        selections.add(root.get(ID));
+        query.multiselect(selections).where(predicates.toArray(new Predicate[0])).orderBy(cb.asc(root.get(ID)));
+        List<R> items = new ArrayList<>();
+        for (Object[] row : entityManager.createQuery(query).setMaxResults(maxRows).getResultList()) {
+            items.add(projection.map(row));
+        }
+        return items;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Path key, Path<Integer> id, Cursor cursor, Object value,
+                                   boolean desc) {
+        Predicate idAfter = desc ? cb.lessThan(id, cursor.id) : cb.greaterThan(id, cursor.id);
+        if (key == id) {
+            return idAfter;
+        }
+        if (value == null) {
+            Predicate restOfNulls = cb.and(cb.isNull(key), idAfter);
+            return desc ? restOfNulls : cb.or(restOfNulls, cb.isNotNull(key));
+        }
+        Predicate beyond = desc ? cb.lessThan(key, (Comparable) value) : cb.greaterThan(key, (Comparable) value);
+        Predicate tie = cb.and(cb.equal(key, value), idAfter);
+        return desc ? cb.or(beyond, tie, cb.isNull(key)) : cb.or(beyond, tie);
+    }
+
+    private static Object parseValue(java.lang.Class<?> type, String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            if (type == String.class) return text;
+            if (type == Integer.class) return Integer.valueOf(text);
+            if (type == Long.class) return Long.valueOf(text);
+            if (type == BigDecimal.class) return new BigDecimal(text);
+            if (type == LocalDate.class) return LocalDate.parse(text);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(text);
+            if (type == LocalTime.class) return LocalTime.parse(text);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        throw new IllegalArgumentException("不支持的排序字段类型: " + type.getSimpleName());
+    }
+
+    /**
+     * 游标内容：排序字段、方向、上一页最后一行的排序值和 id，Base64 编码后对调用方不透明
+     */
+    private static final class Cursor {
+        final String field;
+        final boolean desc;
+        final String value;
+        final Integer id;
+
+        Cursor(String field, boolean desc, String value, Integer id) {
+            this.field = field;
+            this.desc = desc;
+            this.value = value;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = field + "\n" + (desc ? "desc" : "asc") + "\n" + id + "\n" + (value != null ? "=" + value : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\n", 4);
+                if (parts.length < 4) {
+                    throw new IllegalArgumentException("无效的分页游标");
+                }
+                String value = parts[3].startsWith("=") ? parts[3].substring(1) : null;
+                return new Cursor(parts[0], "desc".equals(parts[1]), value, Integer.valueOf(parts[2]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
+    }
+}
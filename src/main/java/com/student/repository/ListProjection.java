@@ -0,0 +1,40 @@
+package com.student.repository;
+
+import javax.persistence.criteria.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 列表查询的投影：决定查询选择哪些列，以及每行结果如何转换为列表项
+ */
+public interface ListProjection<T, R> {
+
+    /**
+     * 向查询中加入需要的根（连接条件追加到 joinConditions），返回要选择的列
+     */
+    List<Selection<?>> select(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, List<Predicate> joinConditions);
+
+    /**
+     * 把一行结果转换为列表项，row 的前几列与 select 返回的列一一对应
+     */
+    R map(Object[] row);
+
+    /**
+     * 直接返回实体
+     */
+    static <T> ListProjection<T, T> entity() {
+        return new ListProjection<T, T>() {
+            @Override
+            public List<Selection<?>> select(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                             List<Predicate> joinConditions) {
+                return Collections.singletonList(root);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T map(Object[] row) {
+                return (T) row[0];
+            }
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.student.repository;
+
+import com.student.entity.Schedule;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 课程表列表的动态查询条件
+ */
+public final class ScheduleSpecifications {
+
+    private ScheduleSpecifications() {
+    }
+
+    public static Specification<Schedule> filter(Integer classId, String semester, String academicYear,
+                                                 Integer dayOfWeek) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (classId != null) {
+                predicates.add(cb.equal(root.get("classId"), classId));
+            }
+            if (semester != null) {
+                predicates.add(cb.equal(root.get("semester"), semester));
+            }
+            if (academicYear != null) {
+                predicates.add(cb.equal(root.get("academicYear"), academicYear));
+            }
+            if (dayOfWeek != null) {
+                predicates.add(cb.equal(root.get("dayOfWeek"), dayOfWeek));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.student.repository;
+
+/**
+ * 各列表查询条件共用的工具方法
+ */
+final class SpecificationSupport {
+
+    private SpecificationSupport() {
+    }
+
+    /**
+     * LIKE '%value%'，转义通配符，保持原先 String.contains 的语义
+     */
+    static String containsPattern(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
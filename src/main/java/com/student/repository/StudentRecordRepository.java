@@ -2,13 +2,20 @@ package com.student.repository;
 
 import com.student.entity.StudentRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StudentRecordRepository extends JpaRepository<StudentRecord, Integer> {
+public interface StudentRecordRepository extends JpaRepository<StudentRecord, Integer>, JpaSpecificationExecutor<StudentRecord> {
     List<StudentRecord> findByStudentId(Integer studentId);
+    /**
+     * 按学生查询学籍，结果进入 Hibernate 查询缓存，student_records 表有写入时自动失效
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<StudentRecord> findFirstByStudentId(Integer studentId);
     List<StudentRecord> findByRecordStatus(StudentRecord.RecordStatus status);
 }
@@ -0,0 +1,37 @@
+package com.student.repository;
+
+import com.student.entity.StudentRecord;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+import static com.student.statistics.StatisticsSupport.parseEnum;
+
+/**
+ * 学籍档案列表的动态查询条件
+ */
+public final class StudentRecordSpecifications {
+
+    private StudentRecordSpecifications() {
+    }
+
+    public static Specification<StudentRecord> filter(Integer studentId, String recordStatus) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (studentId != null) {
+                predicates.add(cb.equal(root.get("studentId"), studentId));
+            }
+            if (recordStatus != null) {
+                StudentRecord.RecordStatus statusValue = parseEnum(StudentRecord.RecordStatus.class, recordStatus);
+                if (statusValue == null) {
+                    return cb.disjunction();
+                }
+                predicates.add(cb.equal(root.get("recordStatus"), statusValue));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,28 +1,77 @@
 package com.student.repository;
 
+import com.student.dto.DailyCount;
+import com.student.dto.StudentCountRow;
 import com.student.entity.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Integer> {
+public interface StudentRepository extends JpaRepository<Student, Integer>, JpaSpecificationExecutor<Student> {
+    /**
+     * 按学号查询，结果进入 Hibernate 查询缓存，students 表有写入时自动失效
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<Student> findByStudentNo(String studentNo);
     List<Student> findByNameContaining(String name);
     List<Student> findByStudentNoContaining(String studentNo);
     List<Student> findByClassId(Integer classId);
     List<Student> findByStatus(Student.StudentStatus status);
     List<Student> findByEnrollmentDateBetween(LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT s.studentNo FROM Student s WHERE s.studentNo IN :studentNos")
+    List<String> findExistingStudentNos(@Param("studentNos") Collection<String> studentNos);
     
     @Query("SELECT s FROM Student s JOIN Class c ON s.classId = c.id WHERE c.grade = :grade")
     List<Student> findByGrade(@Param("grade") String grade);
     
     @Query("SELECT s FROM Student s JOIN Class c ON s.classId = c.id WHERE c.department = :department")
     List<Student> findByDepartment(@Param("department") String department);
+
+    @Query("SELECT c.grade AS grade, c.department AS department, s.status AS status, COUNT(s) AS total " +
+            "FROM Student s JOIN Class c ON s.classId = c.id " +
+            "WHERE (:startDate IS NULL OR s.enrollmentDate >= :startDate) " +
+            "AND (:endDate IS NULL OR s.enrollmentDate <= :endDate) " +
+            "AND (:status IS NULL OR s.status = :status) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY c.grade, c.department, s.status")
+    List<StudentCountRow> countByGradeDepartmentStatus(@Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate,
+                                                       @Param("status") Student.StudentStatus status,
+                                                       @Param("grade") String grade,
+                                                       @Param("department") String department,
+                                                       @Param("classId") Integer classId);
+
+    @Query("SELECT s.enrollmentDate AS day, COUNT(s) AS total FROM Student s " +
+            "WHERE s.enrollmentDate BETWEEN :startDate AND :endDate GROUP BY s.enrollmentDate")
+    List<DailyCount> countByEnrollmentDate(@Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT s.enrollmentDate AS day, COUNT(s) AS total " +
+            "FROM Student s JOIN Class c ON s.classId = c.id " +
+            "WHERE s.enrollmentDate IS NOT NULL " +
+            "AND (:startDate IS NULL OR s.enrollmentDate >= :startDate) " +
+            "AND (:endDate IS NULL OR s.enrollmentDate <= :endDate) " +
+            "AND (:grade IS NULL OR c.grade = :grade) " +
+            "AND (:department IS NULL OR c.department = :department) " +
+            "AND (:classId IS NULL OR c.id = :classId) " +
+            "GROUP BY s.enrollmentDate")
+    List<DailyCount> countByEnrollmentDateForClasses(@Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate,
+                                                     @Param("grade") String grade,
+                                                     @Param("department") String department,
+                                                     @Param("classId") Integer classId);
 }
 
 
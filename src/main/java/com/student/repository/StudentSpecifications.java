@@ -0,0 +1,70 @@
+package com.student.repository;
+
+import com.student.entity.Class;
+import com.student.entity.Student;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+import static com.student.statistics.StatisticsSupport.parseEnum;
+
+/**
+ * 学生列表的动态查询条件，所有筛选都在一条 SQL 中完成
+ */
+public final class StudentSpecifications {
+
+    private StudentSpecifications() {
+    }
+
+    /**
+     * 按列表接口参数组合条件，参数为空的条件不生效；年级/部门通过班级子查询筛选
+     */
+    public static Specification<Student> filter(String name, String studentNo, Integer classId, String grade,
+                                                String department, String status, LocalDate startDate, LocalDate endDate) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (name != null) {
+                predicates.add(cb.like(root.get("name"), containsPattern(name), '\\'));
+            }
+            if (studentNo != null) {
+                predicates.add(cb.like(root.get("studentNo"), containsPattern(studentNo), '\\'));
+            }
+            if (classId != null) {
+                predicates.add(cb.equal(root.get("classId"), classId));
+            }
+            if (status != null) {
+                Student.StudentStatus statusValue = parseEnum(Student.StudentStatus.class, status);
+                if (statusValue == null) {
+                    return cb.disjunction();
+                }
+                predicates.add(cb.equal(root.get("status"), statusValue));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("enrollmentDate"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("enrollmentDate"), endDate));
+            }
+            if (grade != null || department != null) {
+                // Student 与 Class 之间没有映射关联，用 classId IN (子查询) 代替连接
+                Subquery<Integer> classIds = query.subquery(Integer.class);
+                javax.persistence.criteria.Root<Class> c = classIds.from(Class.class);
+                List<Predicate> classPredicates = new ArrayList<>();
+                if (grade != null) {
+                    classPredicates.add(cb.equal(c.get("grade"), grade));
+                }
+                if (department != null) {
+                    classPredicates.add(cb.equal(c.get("department"), department));
+                }
+                classIds.select(c.get("id")).where(classPredicates.toArray(new Predicate[0]));
+                predicates.add(root.get("classId").in(classIds));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,15 +1,19 @@
 package com.student.repository;
 
+import com.student.dto.DailyCount;
+import com.student.dto.TodoCountRow;
 import com.student.entity.Todo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TodoRepository extends JpaRepository<Todo, Integer> {
+public interface TodoRepository extends JpaRepository<Todo, Integer>, JpaSpecificationExecutor<Todo> {
     List<Todo> findByStatus(Todo.TodoStatus status);
     List<Todo> findByPriority(Todo.Priority priority);
     List<Todo> findByAssigneeContaining(String assignee);
@@ -18,6 +22,23 @@ public interface TodoRepository extends JpaRepository<Todo, Integer> {
     
     @Query("SELECT t FROM Todo t WHERE DATE(t.createdAt) >= :startDate AND DATE(t.createdAt) <= :endDate")
     List<Todo> findByCreatedAtBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按状态 + 优先级分组计数，时间区间为 [start, endExclusive)
+     */
+    @Query("SELECT t.status AS status, t.priority AS priority, COUNT(t) AS total FROM Todo t " +
+            "WHERE (:start IS NULL OR t.createdAt >= :start) " +
+            "AND (:endExclusive IS NULL OR t.createdAt < :endExclusive) " +
+            "AND (:status IS NULL OR t.status = :status) " +
+            "GROUP BY t.status, t.priority")
+    List<TodoCountRow> countByStatusPriority(@Param("start") LocalDateTime start,
+                                             @Param("endExclusive") LocalDateTime endExclusive,
+                                             @Param("status") Todo.TodoStatus status);
+
+    @Query("SELECT DATE(t.createdAt) AS day, COUNT(t) AS total FROM Todo t " +
+            "WHERE t.createdAt >= :start AND t.createdAt < :endExclusive GROUP BY DATE(t.createdAt)")
+    List<DailyCount> countByCreatedDate(@Param("start") LocalDateTime start,
+                                        @Param("endExclusive") LocalDateTime endExclusive);
 }
 
 
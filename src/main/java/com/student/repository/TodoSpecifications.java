@@ -0,0 +1,61 @@
+package com.student.repository;
+
+import com.student.entity.Todo;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.student.repository.SpecificationSupport.*;
+import static com.student.statistics.StatisticsSupport.parseEnum;
+
+/**
+ * 待办列表的动态查询条件
+ */
+public final class TodoSpecifications {
+
+    private TodoSpecifications() {
+    }
+
+    /**
+     * 按列表接口参数组合条件，参数为空的条件不生效；日期范围按创建日期筛选，负责人为包含匹配
+     */
+    public static Specification<Todo> filter(String status, String priority, LocalDate startDate, LocalDate endDate,
+                                             String assignee, Integer relatedStudentId, Integer relatedClassId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (status != null) {
+                Todo.TodoStatus statusValue = parseEnum(Todo.TodoStatus.class, status);
+                if (statusValue == null) {
+                    return cb.disjunction();
+                }
+                predicates.add(cb.equal(root.get("status"), statusValue));
+            }
+            if (priority != null) {
+                Todo.Priority priorityValue = parseEnum(Todo.Priority.class, priority);
+                if (priorityValue == null) {
+                    return cb.disjunction();
+                }
+                predicates.add(cb.equal(root.get("priority"), priorityValue));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), startDate.atStartOfDay()));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), endDate.plusDays(1).atStartOfDay()));
+            }
+            if (assignee != null) {
+                predicates.add(cb.like(root.get("assignee"), containsPattern(assignee), '\\'));
+            }
+            if (relatedStudentId != null) {
+                predicates.add(cb.equal(root.get("relatedStudentId"), relatedStudentId));
+            }
+            if (relatedClassId != null) {
+                predicates.add(cb.equal(root.get("relatedClassId"), relatedClassId));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
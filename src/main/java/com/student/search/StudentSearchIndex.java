@@ -0,0 +1,451 @@
+package com.student.search;
+
+import com.student.entity.Class;
+import com.student.entity.Student;
+import com.student.entity.StudentRecord;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.ClassCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static com.student.statistics.StatisticsSupport.streamRows;
+
+/**
+ * 学生搜索的内存倒排索引（单字 + 相邻二字），覆盖姓名、学号、班级名称和学籍中的监护人姓名
+ * <p>
+ * 查询取各关键词最短的倒排表作为候选，再逐个用原文校验并打分（完全相同 > 前缀 > 包含），
+ * 不会因二字组合误命中。学生、学籍、班级写入提交后增量更新索引；
+ * 更新只追加新的词项，旧词项留在倒排表中由校验过滤，定时全量重建时清理。
+ */
+@Slf4j
+@Component
+public class StudentSearchIndex {
+    private static final String[] FIELDS = {"student_no", "name", "class_name", "guardian_name"};
+    private static final int[] FIELD_WEIGHTS = {4, 4, 2, 1};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClassCache classCache;
+
+    private volatile Index index;
+
+    /** 全量重建期间发生的增量更新，重建完成后在新索引上重放 */
+    private List<Consumer<Index>> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 按关键词搜索，多个关键词以空白分隔且须同时命中；按匹配程度排序，最多返回 limit 条
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        for (String term : (query != null ? query : "").trim().split("\\s+")) {
+            String t = normalize(term);
+            if (!t.isEmpty()) terms.add(t);
+        }
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Index current = index;
+        if (current == null) {
+            rebuild();
+            current = index;
+        }
+        return current != null ? current.search(terms, limit) : Collections.emptyList();
+    }
+
+    /**
+     * 全量重建索引，重建期间的写入在完成后补上
+     */
+    @Scheduled(initialDelayString = "${search.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${search.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        long begin = System.currentTimeMillis();
+        Index next = new Index();
+        boolean built = false;
+        try {
+            Map<Integer, ClassCache.ClassInfo> classes = classCache.all();
+            Map<Integer, Object[]> guardians = new HashMap<>();
+            streamRows(jdbcTemplate, "SELECT id, student_id, guardian_name FROM student_records ORDER BY id",
+                    rs -> guardians.putIfAbsent(rs.getInt(2), new Object[]{rs.getInt(1), rs.getString(3)}));
+            streamRows(jdbcTemplate, "SELECT id, student_no, name, class_id FROM students", rs -> {
+                int classId = rs.getInt(4);
+                ClassCache.ClassInfo clazz = classes.get(classId);
+                Object[] guardian = guardians.get(rs.getInt(1));
+                next.put(new Doc(rs.getInt(1), rs.getString(2), rs.getString(3), classId,
+                        clazz != null ? clazz.getClassName() : null,
+                        guardian != null ? (Integer) guardian[0] : null,
+                        guardian != null ? (String) guardian[1] : null));
+            });
+            built = true;
+        } finally {
+            synchronized (this) {
+                if (built) {
+                    pending.forEach(change -> change.accept(next));
+                    index = next;
+                }
+                pending = null;
+            }
+        }
+        log.info("学生搜索索引已重建：{} 名学生，{} 个词项，耗时 {} ms",
+                next.size(), next.termCount(), System.currentTimeMillis() - begin);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isAbout(Student.class)) {
+            Student after = event.getAfter(Student.class);
+            if (after == null) {
+                int id = event.getBefore(Student.class).getId();
+                apply(idx -> idx.remove(id));
+                return;
+            }
+            ClassCache.ClassInfo clazz = classCache.get(after.getClassId());
+            String className = clazz != null ? clazz.getClassName() : null;
+            apply(idx -> {
+                Doc old = idx.get(after.getId());
+                idx.put(new Doc(after.getId(), after.getStudentNo(), after.getName(), after.getClassId(), className,
+                        old != null ? old.guardianRecordId : null, old != null ? old.fields[3] : null));
+            });
+        } else if (event.isAbout(StudentRecord.class)) {
+            StudentRecord before = event.getBefore(StudentRecord.class);
+            StudentRecord after = event.getAfter(StudentRecord.class);
+            if (before != null && (after == null || !before.getStudentId().equals(after.getStudentId()))) {
+                apply(idx -> idx.setGuardian(before.getStudentId(), before.getId(), null, true));
+            }
+            if (after != null) {
+                apply(idx -> idx.setGuardian(after.getStudentId(), after.getId(), after.getGuardianName(), false));
+            }
+        } else if (event.isAbout(Class.class)) {
+            Class after = event.getAfter(Class.class);
+            if (after != null) {
+                apply(idx -> idx.renameClass(after.getId(), after.getClassName()));
+            }
+        }
+    }
+
+    private synchronized void apply(Consumer<Index> change) {
+        if (index != null) {
+            change.accept(index);
+        }
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * 统一为 NFKC（全角数字字母转半角）、小写并去掉空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String s = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单字词项为字符本身，二字词项为两个字符拼成的 int（高位字符非 0，不会与单字冲突）
+     */
+    private static void grams(String s, Set<Integer> out) {
+        for (int i = 0; i < s.length(); i++) {
+            out.add((int) s.charAt(i));
+            if (i + 1 < s.length()) {
+                out.add((s.charAt(i) << 16) | s.charAt(i + 1));
+            }
+        }
+    }
+
+    private static final class Doc {
+        final int id;
+        final Integer classId;
+        final Integer guardianRecordId;
+        /** 原文：学号、姓名、班级名称、监护人姓名 */
+        final String[] fields;
+        /** 归一化后的 fields，用于校验与打分 */
+        final String[] keys;
+
+        Doc(int id, String studentNo, String name, Integer classId, String className,
+            Integer guardianRecordId, String guardianName) {
+            this.id = id;
+            this.classId = classId;
+            this.guardianRecordId = guardianRecordId;
+            this.fields = new String[]{studentNo, name, className, guardianName};
+            this.keys = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                keys[i] = normalize(fields[i]);
+            }
+        }
+
+        Doc withClassName(String className) {
+            return new Doc(id, fields[0], fields[1], classId, className, guardianRecordId, fields[3]);
+        }
+
+        Doc withGuardian(Integer recordId, String guardianName) {
+            return new Doc(id, fields[0], fields[1], classId, fields[2], recordId, guardianName);
+        }
+
+        Set<Integer> grams() {
+            Set<Integer> out = new HashSet<>();
+            for (String key : keys) {
+                StudentSearchIndex.grams(key, out);
+            }
+            return out;
+        }
+
+        /**
+         * 所有关键词都命中时返回得分，否则返回 -1
+         */
+        int score(List<String> terms) {
+            int total = 0;
+            for (String term : terms) {
+                int best = -1;
+                for (int f = 0; f < keys.length; f++) {
+                    int at = keys[f].indexOf(term);
+                    if (at >= 0) {
+                        int kind = at > 0 ? 1 : keys[f].length() == term.length() ? 3 : 2;
+                        best = Math.max(best, kind * 10 + FIELD_WEIGHTS[f]);
+                    }
+                }
+                if (best < 0) {
+                    return -1;
+                }
+                total += best;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * 倒排表与文档；读写锁保护，查询之间互不阻塞
+     */
+    private static final class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Integer, IntList> postings = new HashMap<>();
+        private Doc[] docs = new Doc[1024];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int termCount() {
+            return postings.size();
+        }
+
+        Doc get(int id) {
+            lock.readLock().lock();
+            try {
+                return id < docs.length ? docs[id] : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(Doc doc) {
+            lock.writeLock().lock();
+            try {
+                if (doc.id >= docs.length) {
+                    docs = Arrays.copyOf(docs, Math.max(docs.length * 2, doc.id + 1));
+                }
+                Doc old = docs[doc.id];
+                Set<Integer> grams = doc.grams();
+                if (old != null) {
+                    grams.removeAll(old.grams());
+                } else {
+                    size++;
+                }
+                for (Integer gram : grams) {
+                    postings.computeIfAbsent(gram, k -> new IntList()).add(doc.id);
+                }
+                docs[doc.id] = doc;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(int id) {
+            lock.writeLock().lock();
+            try {
+                if (id < docs.length && docs[id] != null) {
+                    docs[id] = null;
+                    size--;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 学生的监护人取其 ID 最小的学籍记录；clear 为 true 时仅清除来自该记录的监护人
+         */
+        void setGuardian(Integer studentId, Integer recordId, String guardianName, boolean clear) {
+            Doc doc = get(studentId);
+            if (doc == null) {
+                return;
+            }
+            if (clear) {
+                if (recordId.equals(doc.guardianRecordId)) {
+                    put(doc.withGuardian(null, null));
+                }
+            } else if (doc.guardianRecordId == null || recordId <= doc.guardianRecordId) {
+                put(doc.withGuardian(recordId, guardianName));
+            }
+        }
+
+        void renameClass(Integer classId, String className) {
+            List<Doc> renamed = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (Doc doc : docs) {
+                    if (doc != null && classId.equals(doc.classId) && !Objects.equals(className, doc.fields[2])) {
+                        renamed.add(doc.withClassName(className));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            renamed.forEach(this::put);
+        }
+
+        List<Map<String, Object>> search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                IntList candidates = null;
+                for (String term : terms) {
+                    Set<Integer> grams = new HashSet<>();
+                    if (term.length() == 1) {
+                        grams.add((int) term.charAt(0));
+                    } else {
+                        for (int i = 0; i + 1 < term.length(); i++) {
+                            grams.add((term.charAt(i) << 16) | term.charAt(i + 1));
+                        }
+                    }
+                    for (Integer gram : grams) {
+                        IntList list = postings.get(gram);
+                        if (list == null) {
+                            return Collections.emptyList();
+                        }
+                        if (candidates == null || list.size < candidates.size) {
+                            candidates = list;
+                        }
+                    }
+                }
+
+                // 小顶堆保留排序键最大的 limit 条，排序键按 得分、姓名长度（短优先）、ID（小优先）打包成 long
+                long[] heap = new long[limit];
+                int heapSize = 0;
+                BitSet seen = new BitSet(docs.length);
+                for (int i = 0; i < candidates.size; i++) {
+                    int id = candidates.values[i];
+                    if (seen.get(id)) continue;
+                    seen.set(id);
+                    Doc doc = docs[id];
+                    if (doc == null) continue;
+                    int score = doc.score(terms);
+                    if (score < 0) continue;
+                    long key = ((long) score << 48)
+                            | ((long) (0xFFFF - Math.min(lengthOf(doc.fields[1]), 0xFFFF)) << 32)
+                            | (Integer.MAX_VALUE - id);
+                    if (heapSize < limit) {
+                        heap[heapSize] = key;
+                        siftUp(heap, heapSize++);
+                    } else if (key > heap[0]) {
+                        heap[0] = key;
+                        siftDown(heap, heapSize);
+                    }
+                }
+
+                long[] keys = Arrays.copyOf(heap, heapSize);
+                Arrays.sort(keys);
+                List<Map<String, Object>> result = new ArrayList<>(heapSize);
+                for (int i = keys.length - 1; i >= 0; i--) {
+                    Doc doc = docs[Integer.MAX_VALUE - (int) (keys[i] & 0xFFFFFFFFL)];
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("id", doc.id);
+                    m.put(FIELDS[0], doc.fields[0]);
+                    m.put(FIELDS[1], doc.fields[1]);
+                    m.put("class_id", doc.classId);
+                    m.put(FIELDS[2], doc.fields[2]);
+                    m.put(FIELDS[3], doc.fields[3]);
+                    m.put("score", (int) (keys[i] >>> 48));
+                    result.add(m);
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private static int lengthOf(String s) {
+            return s != null ? s.length() : 0;
+        }
+
+        private static void siftUp(long[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= heap[i]) break;
+                long t = heap[parent];
+                heap[parent] = heap[i];
+                heap[i] = t;
+                i = parent;
+            }
+        }
+
+        private static void siftDown(long[] heap, int size) {
+            int i = 0;
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && heap[left] < heap[smallest]) smallest = left;
+                if (right < size && heap[right] < heap[smallest]) smallest = right;
+                if (smallest == i) return;
+                long t = heap[smallest];
+                heap[smallest] = heap[i];
+                heap[i] = t;
+                i = smallest;
+            }
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -1,52 +1,246 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.AttendanceDTO;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
 import com.student.entity.Attendance;
+import com.student.entity.Student;
+import com.student.event.EntityChangeEvent;
 import com.student.repository.AttendanceRepository;
+import com.student.repository.AttendanceSpecifications;
+import com.student.repository.ClassRepository;
+import com.student.repository.DtoProjections;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.StudentRepository;
+import com.student.statistics.StatisticsSupport;
+import com.student.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class AttendanceService {
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("attendanceDate", "createdAt"));
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
-    public List<Attendance> findAll(Integer studentId, Integer classId, String status,
-                                   LocalDate startDate, LocalDate endDate, String courseName) {
-        List<Attendance> attendances = attendanceRepository.findAll();
-        
-        return attendances.stream()
-                .filter(a -> studentId == null || a.getStudentId().equals(studentId))
-                .filter(a -> classId == null || a.getClassId().equals(classId))
-                .filter(a -> status == null || a.getStatus().name().equals(status))
-                .filter(a -> startDate == null || !a.getAttendanceDate().isBefore(startDate))
-                .filter(a -> endDate == null || !a.getAttendanceDate().isAfter(endDate))
-                .filter(a -> courseName == null || (a.getCourseName() != null && a.getCourseName().contains(courseName)))
-                .collect(Collectors.toList());
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 考勤列表，筛选与学生/班级名称连接在同一条 SQL 中完成，直接查询到 DTO；
+     * 指定 fields（逗号分隔的字段名）时只查询并返回这些字段
+     */
+    public List<?> findAll(Integer studentId, Integer classId, String status, LocalDate startDate, LocalDate endDate,
+                           String courseName, String fields) {
+        return keysetPaginator.list(Attendance.class,
+                AttendanceSpecifications.filter(studentId, classId, status, startDate, endDate, courseName),
+                DtoProjections.ATTENDANCE.narrow(fields));
+    }
+
+    /**
+     * 考勤列表游标分页，筛选与投影和 findAll 相同
+     */
+    public CursorPage<?> findPage(Integer studentId, Integer classId, String status, LocalDate startDate,
+                                  LocalDate endDate, String courseName, String fields, KeysetPageRequest page) {
+        return keysetPaginator.page(Attendance.class,
+                AttendanceSpecifications.filter(studentId, classId, status, startDate, endDate, courseName),
+                DtoProjections.ATTENDANCE.narrow(fields), SORTABLE, page, attendanceRepository);
+    }
+
+    /**
+     * 考勤增量同步：since 之后新增、修改的考勤与已删除的 id
+     */
+    public ChangeSet<AttendanceDTO> findChanges(String since, Integer limit) {
+        return changeFeed.changes(Attendance.class, DtoProjections.ATTENDANCE, attendanceRepository, since, limit);
+    }
+
+    /**
+     * 整班点名：锁定班级后一次读出当天该课程已有记录，在同一事务中批量更新变化的记录、批量插入缺少的记录
+     * <p>
+     * 名单为班级的在读学生加上 statuses 中列出的本班学生，未列出的按出勤处理；
+     * 同一班级的并发点名在班级行锁上串行执行，不会产生重复记录。
+     */
+    @Transactional
+    public Map<String, Object> rollCall(Integer classId, LocalDate date, String courseName, String remark,
+                                        Map<Integer, Attendance.AttendanceStatus> statuses) {
+        if (classId == null || date == null) {
+            throw new RuntimeException("班级和日期不能为空");
+        }
+        classRepository.findByIdForUpdate(classId).orElseThrow(() -> new RuntimeException("班级不存在"));
+
+        Set<Integer> members = new HashSet<>();
+        List<Integer> roster = new ArrayList<>();
+        for (Student s : studentRepository.findByClassId(classId)) {
+            members.add(s.getId());
+            if (s.getStatus() == Student.StudentStatus.在读 || statuses.containsKey(s.getId())) {
+                roster.add(s.getId());
+            }
+        }
+        for (Integer studentId : statuses.keySet()) {
+            if (!members.contains(studentId)) {
+                throw new RuntimeException("学生 " + studentId + " 不属于该班级");
+            }
+        }
+        Collections.sort(roster);
+
+        Map<Integer, Attendance> existing = new HashMap<>();
+        for (Attendance a : attendanceRepository.findByClassIdAndAttendanceDateAndCourseName(classId, date, courseName)) {
+            existing.putIfAbsent(a.getStudentId(), a);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Attendance> inserts = new ArrayList<>();
+        List<Attendance[]> updates = new ArrayList<>();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Attendance.AttendanceStatus status : Attendance.AttendanceStatus.values()) {
+            counts.put(status.name(), 0L);
+        }
+        for (Integer studentId : roster) {
+            Attendance.AttendanceStatus status = statuses.getOrDefault(studentId, Attendance.AttendanceStatus.出勤);
+            counts.merge(status.name(), 1L, Long::sum);
+            Attendance current = existing.get(studentId);
+            if (current == null) {
+                Attendance a = new Attendance();
+                a.setStudentId(studentId);
+                a.setClassId(classId);
+                a.setAttendanceDate(date);
+                a.setStatus(status);
+                a.setCourseName(courseName);
+                a.setRemark(remark);
+                a.setCreatedAt(now);
+                a.setUpdatedAt(now);
+                inserts.add(a);
+            } else if (current.getStatus() != status) {
+                // 不修改托管实体，避免提交时 Hibernate 再逐条 UPDATE
+                Attendance after = EntityChangeEvent.snapshot(current);
+                after.setStatus(status);
+                after.setUpdatedAt(now);
+                updates.add(new Attendance[]{EntityChangeEvent.snapshot(current), after});
+            }
+        }
+
+        batchInsert(inserts);
+        batchUpdateStatus(updates);
+        for (Attendance a : inserts) {
+            eventPublisher.publishEvent(EntityChangeEvent.created(a));
+        }
+        for (Attendance[] pair : updates) {
+            eventPublisher.publishEvent(EntityChangeEvent.updated(pair[0], pair[1]));
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", (long) roster.size());
+        summary.put("counts", counts);
+        summary.put("rate", StatisticsSupport.rate(counts.get(Attendance.AttendanceStatus.出勤.name()), roster.size()));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("class_id", classId);
+        result.put("attendance_date", date);
+        result.put("course_name", courseName);
+        result.put("inserted", inserts.size());
+        result.put("updated", updates.size());
+        result.put("unchanged", roster.size() - inserts.size() - updates.size());
+        result.put("summary", summary);
+        return result;
+    }
+
+    private void batchInsert(List<Attendance> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO attendance (student_id, class_id, "
+                    + "attendance_date, status, course_name, remark, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (Attendance a : rows) {
+                    ps.setInt(1, a.getStudentId());
+                    ps.setInt(2, a.getClassId());
+                    ps.setObject(3, a.getAttendanceDate());
+                    ps.setString(4, a.getStatus().name());
+                    ps.setString(5, a.getCourseName());
+                    ps.setString(6, a.getRemark());
+                    ps.setObject(7, a.getCreatedAt());
+                    ps.setObject(8, a.getUpdatedAt());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < rows.size()) {
+                        rows.get(i++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void batchUpdateStatus(List<Attendance[]> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE attendance SET status = ?, updated_at = ? WHERE id = ?", updates, updates.size(),
+                (ps, pair) -> {
+                    ps.setString(1, pair[1].getStatus().name());
+                    ps.setObject(2, pair[1].getUpdatedAt());
+                    ps.setInt(3, pair[1].getId());
+                });
     }
 
     @Transactional
     public Attendance save(Attendance attendance) {
-        return attendanceRepository.save(attendance);
+        Attendance saved = attendanceRepository.save(attendance);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public Attendance update(Attendance attendance) {
         Attendance existing = attendanceRepository.findById(attendance.getId())
                 .orElseThrow(() -> new RuntimeException("考勤记录不存在"));
+        Attendance before = EntityChangeEvent.snapshot(existing);
         if (attendance.getAttendanceDate() != null) existing.setAttendanceDate(attendance.getAttendanceDate());
         if (attendance.getStatus() != null) existing.setStatus(attendance.getStatus());
         if (attendance.getCourseName() != null) existing.setCourseName(attendance.getCourseName());
         if (attendance.getRemark() != null) existing.setRemark(attendance.getRemark());
-        return attendanceRepository.save(existing);
+        Attendance saved = attendanceRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        attendanceRepository.deleteById(id);
+        Attendance existing = attendanceRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("考勤记录不存在"));
+        attendanceRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
 }
 
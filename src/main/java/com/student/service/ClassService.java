@@ -1,26 +1,45 @@
 package com.student.service;
 
 import com.student.entity.Class;
+import com.student.event.CascadeDeletes;
+import com.student.event.EntityChangeEvent;
+import com.student.event.ResourceVersions;
 import com.student.repository.ClassRepository;
+import com.student.repository.ClassSpecifications;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.ListProjection;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class ClassService {
     @Autowired
     private ClassRepository classRepository;
 
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private CascadeDeletes cascadeDeletes;
+
+    /**
+     * 班级列表，筛选条件在 SQL 中完成
+     */
     public List<Class> findAll(String grade, String department, String className) {
-        List<Class> classes = classRepository.findAll();
-        
-        return classes.stream()
-                .filter(c -> grade == null || c.getGrade().equals(grade))
-                .filter(c -> department == null || c.getDepartment().equals(department))
-                .filter(c -> className == null || c.getClassName().contains(className))
-                .collect(Collectors.toList());
+        return keysetPaginator.listAll(Class.class, ClassSpecifications.filter(grade, department, className),
+                ListProjection.entity());
     }
 
     public Class findById(Integer id) {
@@ -30,23 +49,45 @@ public class ClassService {
 
     @Transactional
     public Class save(Class clazz) {
-        return classRepository.save(clazz);
+        Class saved = classRepository.save(clazz);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public Class update(Class clazz) {
         Class existing = findById(clazz.getId());
+        Class before = EntityChangeEvent.snapshot(existing);
         if (clazz.getClassName() != null) existing.setClassName(clazz.getClassName());
         if (clazz.getGrade() != null) existing.setGrade(clazz.getGrade());
         if (clazz.getDepartment() != null) existing.setDepartment(clazz.getDepartment());
         if (clazz.getTeacherId() != null) existing.setTeacherId(clazz.getTeacherId());
-        return classRepository.save(existing);
+        Class saved = classRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        classRepository.deleteById(id);
+        Class existing = findById(id);
+        cascadeDeletes.beforeDelete(existing);
+        classRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
-}
-
 
+    /**
+     * 定时对账班级学生人数：一条分组 COUNT 找出与学生表不一致的班级，只对这些班级加锁重算
+     * <p>
+     * 日常增删改学生时人数按 ±1 原子更新，这里只修正异常中断等原因造成的偏差。
+     */
+    @Scheduled(initialDelayString = "${classes.student-count.reconcile-interval-ms:600000}",
+            fixedDelayString = "${classes.student-count.reconcile-interval-ms:600000}")
+    public void reconcileStudentCounts() {
+        List<Integer> drifted = classRepository.findStudentCountDrift();
+        if (!drifted.isEmpty()) {
+            classRepository.recountStudents(drifted);
+            resourceVersions.touch(Class.class);
+            log.warn("班级学生人数对账发现 {} 个班级存在偏差，已按学生表修正: {}", drifted.size(), drifted);
+        }
+    }
+}
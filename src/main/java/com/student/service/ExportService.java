@@ -0,0 +1,262 @@
+package com.student.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.student.dto.AttendanceDTO;
+import com.student.dto.GradeDTO;
+import com.student.statistics.StatisticsSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 考勤/成绩的流式导出
+ * <p>
+ * 结果集以只进游标逐行读取、逐行写出（NDJSON 或 CSV），不在内存中构建完整列表；
+ * 学生/班级名称通过有界的 LRU 缓存按需查询，导出多大内存占用都保持平稳。
+ */
+@Service
+public class ExportService {
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final List<String> ATTENDANCE_COLUMNS = Arrays.asList("id", "student_id", "student_no",
+            "student_name", "class_id", "class_name", "grade", "attendance_date", "status", "course_name", "remark",
+            "created_at", "updated_at");
+    private static final List<String> GRADE_COLUMNS = Arrays.asList("id", "student_id", "student_no",
+            "student_name", "class_id", "class_name", "grade", "course_name", "exam_type", "score", "full_score",
+            "semester", "academic_year", "exam_date", "remark", "created_at", "updated_at");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${export.lookup-cache-size:10000}")
+    private int lookupCacheSize;
+
+    /**
+     * 校验导出格式，不支持时抛出 IllegalArgumentException（在开始写出之前调用）
+     */
+    public static String checkFormat(String format) {
+        String f = format != null ? format.toLowerCase(Locale.ROOT) : NDJSON;
+        if (!NDJSON.equals(f) && !CSV.equals(f)) {
+            throw new IllegalArgumentException("不支持的导出格式: " + format);
+        }
+        return f;
+    }
+
+    public void exportAttendance(Integer studentId, Integer classId, String status, LocalDate startDate,
+                                 LocalDate endDate, String courseName, String format, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT id, student_id, class_id, attendance_date, status, course_name, "
+                + "remark, created_at, updated_at FROM attendance WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        condition(sql, args, " AND student_id = ?", studentId);
+        condition(sql, args, " AND class_id = ?", classId);
+        condition(sql, args, " AND status = ?", status);
+        condition(sql, args, " AND attendance_date >= ?", startDate);
+        condition(sql, args, " AND attendance_date <= ?", endDate);
+        condition(sql, args, " AND course_name LIKE ?", courseName != null ? containsPattern(courseName) : null);
+        sql.append(" ORDER BY id");
+
+        Lookups lookups = new Lookups();
+        write(sql.toString(), args, format, ATTENDANCE_COLUMNS, out, rs -> {
+            AttendanceDTO dto = new AttendanceDTO();
+            dto.setId(rs.getInt(1));
+            dto.setStudent_id(rs.getInt(2));
+            dto.setClass_id(rs.getInt(3));
+            dto.setAttendance_date(toLocalDate(rs.getDate(4)));
+            dto.setStatus(rs.getString(5));
+            dto.setCourse_name(rs.getString(6));
+            dto.setRemark(rs.getString(7));
+            dto.setCreated_at(toLocalDateTime(rs.getTimestamp(8)));
+            dto.setUpdated_at(toLocalDateTime(rs.getTimestamp(9)));
+            String[] student = lookups.student(dto.getStudent_id());
+            dto.setStudent_no(student[0]);
+            dto.setStudent_name(student[1]);
+            String[] clazz = lookups.clazz(dto.getClass_id());
+            dto.setClass_name(clazz[0]);
+            dto.setGrade(clazz[1]);
+            return dto;
+        }, dto -> Arrays.asList(dto.getId(), dto.getStudent_id(), dto.getStudent_no(), dto.getStudent_name(),
+                dto.getClass_id(), dto.getClass_name(), dto.getGrade(), dto.getAttendance_date(), dto.getStatus(),
+                dto.getCourse_name(), dto.getRemark(), dto.getCreated_at(), dto.getUpdated_at()));
+    }
+
+    public void exportGrades(Integer studentId, Integer classId, String courseName, String semester,
+                             String academicYear, LocalDate startDate, LocalDate endDate, String format,
+                             OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT id, student_id, class_id, course_name, exam_type, score, "
+                + "full_score, semester, academic_year, exam_date, remark, created_at, updated_at FROM grades WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        condition(sql, args, " AND student_id = ?", studentId);
+        condition(sql, args, " AND class_id = ?", classId);
+        condition(sql, args, " AND course_name LIKE ?", courseName != null ? containsPattern(courseName) : null);
+        condition(sql, args, " AND semester = ?", semester);
+        condition(sql, args, " AND academic_year = ?", academicYear);
+        condition(sql, args, " AND exam_date >= ?", startDate);
+        condition(sql, args, " AND exam_date <= ?", endDate);
+        sql.append(" ORDER BY id");
+
+        Lookups lookups = new Lookups();
+        write(sql.toString(), args, format, GRADE_COLUMNS, out, rs -> {
+            GradeDTO dto = new GradeDTO();
+            dto.setId(rs.getInt(1));
+            dto.setStudent_id(rs.getInt(2));
+            dto.setClass_id(rs.getInt(3));
+            dto.setCourse_name(rs.getString(4));
+            dto.setExam_type(rs.getString(5));
+            dto.setScore(rs.getBigDecimal(6));
+            dto.setFull_score(rs.getBigDecimal(7));
+            dto.setSemester(rs.getString(8));
+            dto.setAcademic_year(rs.getString(9));
+            dto.setExam_date(toLocalDate(rs.getDate(10)));
+            dto.setRemark(rs.getString(11));
+            dto.setCreated_at(toLocalDateTime(rs.getTimestamp(12)));
+            dto.setUpdated_at(toLocalDateTime(rs.getTimestamp(13)));
+            String[] student = lookups.student(dto.getStudent_id());
+            dto.setStudent_no(student[0]);
+            dto.setStudent_name(student[1]);
+            String[] clazz = lookups.clazz(dto.getClass_id());
+            dto.setClass_name(clazz[0]);
+            dto.setGrade(clazz[1]);
+            return dto;
+        }, dto -> Arrays.asList(dto.getId(), dto.getStudent_id(), dto.getStudent_no(), dto.getStudent_name(),
+                dto.getClass_id(), dto.getClass_name(), dto.getGrade(), dto.getCourse_name(), dto.getExam_type(),
+                dto.getScore(), dto.getFull_score(), dto.getSemester(), dto.getAcademic_year(), dto.getExam_date(),
+                dto.getRemark(), dto.getCreated_at(), dto.getUpdated_at()));
+    }
+
+    /**
+     * 流式读取并逐行写出；写出异常包装为 UncheckedIOException 穿过 JDBC 回调后还原
+     */
+    private <T> void write(String sql, List<Object> args, String format, List<String> columns, OutputStream out,
+                           RowMapper<T> mapper, Function<T, List<Object>> csvValues) throws IOException {
+        try {
+            if (CSV.equals(format)) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                // BOM 让 Excel 以 UTF-8 打开中文
+                writer.write('\uFEFF');
+                writeCsvLine(writer, new ArrayList<>(columns));
+                StatisticsSupport.streamRows(jdbcTemplate, sql, args, rs -> {
+                    try {
+                        writeCsvLine(writer, csvValues.apply(mapper.map(rs)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } else {
+                // 每行写完不立即 flush，由缓冲区攒满后再写出
+                ObjectWriter jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.setRootValueSeparator(null);
+                StatisticsSupport.streamRows(jdbcTemplate, sql, args, rs -> {
+                    try {
+                        jsonWriter.writeValue(generator, mapper.map(rs));
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, List<Object> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void condition(StringBuilder sql, List<Object> args, String clause, Object value) {
+        if (value != null) {
+            sql.append(clause);
+            args.add(value);
+        }
+    }
+
+    /**
+     * LIKE '%value%'，MySQL 默认以反斜杠转义通配符
+     */
+    private static String containsPattern(String value) {
+        return "%" + value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 单次导出内的学生/班级名称缓存，超过容量时淘汰最久未用的条目；
+     * 查询走连接池中的另一连接，不影响正在流式读取的结果集
+     */
+    private class Lookups {
+        private final Map<Integer, String[]> students = lru();
+        private final Map<Integer, String[]> classes = lru();
+
+        String[] student(Integer id) {
+            return students.computeIfAbsent(id, k -> load("SELECT student_no, name FROM students WHERE id = ?", k));
+        }
+
+        String[] clazz(Integer id) {
+            return classes.computeIfAbsent(id, k -> load("SELECT class_name, grade FROM classes WHERE id = ?", k));
+        }
+
+        private String[] load(String sql, Integer id) {
+            List<String[]> rows = jdbcTemplate.query(sql, (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, id);
+            return rows.isEmpty() ? new String[2] : rows.get(0);
+        }
+
+        private Map<Integer, String[]> lru() {
+            return new LinkedHashMap<Integer, String[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+                    return size() > lookupCacheSize;
+                }
+            };
+        }
+    }
+}
@@ -1,33 +1,267 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
+import com.student.dto.GradeDTO;
 import com.student.entity.Grade;
+import com.student.event.EntityChangeEvent;
+import com.student.entity.Student;
+import com.student.repository.ClassRepository;
 import com.student.repository.GradeRepository;
+import com.student.repository.GradeSpecifications;
+import com.student.repository.DtoProjections;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.StudentRepository;
+import com.student.statistics.GradeDistributions;
+import com.student.statistics.StatisticsSupport;
+import com.student.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class GradeService {
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("examDate", "score", "createdAt"));
+
     @Autowired
     private GradeRepository gradeRepository;
 
-    public List<Grade> findAll(Integer studentId, Integer classId, String courseName,
-                              String semester, String academicYear, LocalDate startDate, LocalDate endDate) {
-        List<Grade> grades = gradeRepository.findAll();
-        
-        return grades.stream()
-                .filter(g -> studentId == null || g.getStudentId().equals(studentId))
-                .filter(g -> classId == null || g.getClassId().equals(classId))
-                .filter(g -> courseName == null || g.getCourseName().contains(courseName))
-                .filter(g -> semester == null || (g.getSemester() != null && g.getSemester().equals(semester)))
-                .filter(g -> academicYear == null || (g.getAcademicYear() != null && g.getAcademicYear().equals(academicYear)))
-                .filter(g -> startDate == null || (g.getExamDate() != null && !g.getExamDate().isBefore(startDate)))
-                .filter(g -> endDate == null || (g.getExamDate() != null && !g.getExamDate().isAfter(endDate)))
-                .collect(Collectors.toList());
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 成绩列表，筛选与学生/班级名称连接在同一条 SQL 中完成，直接查询到 DTO；
+     * 指定 fields（逗号分隔的字段名）时只查询并返回这些字段
+     */
+    public List<?> findAll(Integer studentId, Integer classId, String courseName, String semester, String academicYear,
+                           LocalDate startDate, LocalDate endDate, String fields) {
+        return keysetPaginator.list(Grade.class,
+                GradeSpecifications.filter(studentId, classId, courseName, semester, academicYear, startDate, endDate),
+                DtoProjections.GRADE.narrow(fields));
+    }
+
+    /**
+     * 成绩列表游标分页，筛选与投影和 findAll 相同
+     */
+    public CursorPage<?> findPage(Integer studentId, Integer classId, String courseName, String semester,
+                                  String academicYear, LocalDate startDate, LocalDate endDate, String fields,
+                                  KeysetPageRequest page) {
+        return keysetPaginator.page(Grade.class,
+                GradeSpecifications.filter(studentId, classId, courseName, semester, academicYear, startDate, endDate),
+                DtoProjections.GRADE.narrow(fields), SORTABLE, page, gradeRepository);
+    }
+
+    /**
+     * 成绩增量同步：since 之后新增、修改的成绩与已删除的 id
+     */
+    public ChangeSet<GradeDTO> findChanges(String since, Integer limit) {
+        return changeFeed.changes(Grade.class, DtoProjections.GRADE, gradeRepository, since, limit);
+    }
+
+    /**
+     * 整班成绩录入：锁定班级后一次读出该考试已有成绩，按 (学生, 课程, 考试类型, 学期) 批量更新或插入，
+     * 并在同一事务中返回录入后的班级平均分与得分率分布
+     * <p>
+     * 同一班级的并发录入在班级行锁上串行执行；传入 loadedAt 时，加载之后被他人修改过的成绩不覆盖，作为冲突返回。
+     */
+    @Transactional
+    public Map<String, Object> saveExamSheet(Integer classId, String courseName, String examType, String semester,
+                                             String academicYear, LocalDate examDate, BigDecimal fullScore,
+                                             LocalDateTime loadedAt, Map<Integer, BigDecimal> scores) {
+        if (classId == null || courseName == null) {
+            throw new RuntimeException("班级和课程不能为空");
+        }
+        if (scores == null || scores.isEmpty()) {
+            throw new RuntimeException("成绩不能为空");
+        }
+        BigDecimal full = fullScore != null ? fullScore : new BigDecimal("100");
+        if (full.signum() <= 0) {
+            throw new RuntimeException("满分必须大于 0");
+        }
+        classRepository.findByIdForUpdate(classId).orElseThrow(() -> new RuntimeException("班级不存在"));
+
+        Set<Integer> members = new HashSet<>();
+        for (Student s : studentRepository.findByClassId(classId)) {
+            members.add(s.getId());
+        }
+        for (Map.Entry<Integer, BigDecimal> e : scores.entrySet()) {
+            if (!members.contains(e.getKey())) {
+                throw new RuntimeException("学生 " + e.getKey() + " 不属于该班级");
+            }
+            BigDecimal score = e.getValue();
+            if (score != null && (score.signum() < 0 || score.compareTo(full) > 0)) {
+                throw new RuntimeException("学生 " + e.getKey() + " 的分数超出范围");
+            }
+        }
+
+        // 每名学生保留一条成绩，录入结果与统计都以它为准
+        Map<Integer, Grade> sheet = new TreeMap<>();
+        for (Grade g : gradeRepository.findByStudentIdInAndCourseNameAndExamTypeAndSemester(members, courseName,
+                examType, semester)) {
+            sheet.putIfAbsent(g.getStudentId(), g);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Grade> inserts = new ArrayList<>();
+        List<Grade[]> updates = new ArrayList<>();
+        List<Map<String, Object>> conflicts = new ArrayList<>();
+        for (Map.Entry<Integer, BigDecimal> e : new TreeMap<>(scores).entrySet()) {
+            Integer studentId = e.getKey();
+            BigDecimal score = e.getValue();
+            Grade current = sheet.get(studentId);
+            if (current == null) {
+                Grade g = new Grade();
+                g.setStudentId(studentId);
+                g.setClassId(classId);
+                g.setCourseName(courseName);
+                g.setExamType(examType);
+                g.setScore(score);
+                g.setFullScore(full);
+                g.setSemester(semester);
+                g.setAcademicYear(academicYear);
+                g.setExamDate(examDate);
+                g.setCreatedAt(now);
+                g.setUpdatedAt(now);
+                inserts.add(g);
+                sheet.put(studentId, g);
+            } else if (!sameScore(current.getScore(), score) || !sameScore(current.getFullScore(), full)
+                    || (academicYear != null && !academicYear.equals(current.getAcademicYear()))
+                    || (examDate != null && !examDate.equals(current.getExamDate()))) {
+                if (loadedAt != null && current.getUpdatedAt() != null && current.getUpdatedAt().isAfter(loadedAt)) {
+                    Map<String, Object> conflict = new LinkedHashMap<>();
+                    conflict.put("student_id", studentId);
+                    conflict.put("score", current.getScore());
+                    conflict.put("updated_at", current.getUpdatedAt());
+                    conflicts.add(conflict);
+                    continue;
+                }
+                // 不修改托管实体，避免提交时 Hibernate 再逐条 UPDATE
+                Grade after = EntityChangeEvent.snapshot(current);
+                after.setScore(score);
+                after.setFullScore(full);
+                if (academicYear != null) after.setAcademicYear(academicYear);
+                if (examDate != null) after.setExamDate(examDate);
+                after.setUpdatedAt(now);
+                updates.add(new Grade[]{EntityChangeEvent.snapshot(current), after});
+                sheet.put(studentId, after);
+            }
+        }
+
+        batchInsert(inserts);
+        batchUpdateScores(updates);
+        for (Grade g : inserts) {
+            eventPublisher.publishEvent(EntityChangeEvent.created(g));
+        }
+        for (Grade[] pair : updates) {
+            eventPublisher.publishEvent(EntityChangeEvent.updated(pair[0], pair[1]));
+        }
+
+        // JDBC 写入后持久化上下文已过期，统计直接用内存中的最终结果，不再回查
+        long scored = 0;
+        long sumHundredths = 0;
+        for (Grade g : sheet.values()) {
+            if (g.getScore() != null) {
+                scored++;
+                sumHundredths += g.getScore().movePointRight(2).longValue();
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", (long) sheet.size());
+        summary.put("scored", scored);
+        summary.put("average", StatisticsSupport.avgScore(sumHundredths, scored));
+        summary.put("distribution", GradeDistributions.summarize(sheet.values(), 10));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("class_id", classId);
+        result.put("course_name", courseName);
+        result.put("exam_type", examType);
+        result.put("semester", semester);
+        result.put("inserted", inserts.size());
+        result.put("updated", updates.size());
+        result.put("unchanged", scores.size() - inserts.size() - updates.size() - conflicts.size());
+        result.put("conflicts", conflicts);
+        result.put("summary", summary);
+        return result;
+    }
+
+    private static boolean sameScore(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private void batchInsert(List<Grade> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO grades (student_id, class_id, course_name, "
+                    + "exam_type, score, full_score, semester, academic_year, exam_date, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                for (Grade g : rows) {
+                    ps.setInt(1, g.getStudentId());
+                    ps.setInt(2, g.getClassId());
+                    ps.setString(3, g.getCourseName());
+                    ps.setString(4, g.getExamType());
+                    ps.setBigDecimal(5, g.getScore());
+                    ps.setBigDecimal(6, g.getFullScore());
+                    ps.setString(7, g.getSemester());
+                    ps.setString(8, g.getAcademicYear());
+                    ps.setObject(9, g.getExamDate());
+                    ps.setObject(10, g.getCreatedAt());
+                    ps.setObject(11, g.getUpdatedAt());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < rows.size()) {
+                        rows.get(i++).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void batchUpdateScores(List<Grade[]> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE grades SET score = ?, full_score = ?, academic_year = ?, exam_date = ?, "
+                        + "updated_at = ? WHERE id = ?", updates, updates.size(),
+                (ps, pair) -> {
+                    ps.setBigDecimal(1, pair[1].getScore());
+                    ps.setBigDecimal(2, pair[1].getFullScore());
+                    ps.setString(3, pair[1].getAcademicYear());
+                    ps.setObject(4, pair[1].getExamDate());
+                    ps.setObject(5, pair[1].getUpdatedAt());
+                    ps.setInt(6, pair[1].getId());
+                });
     }
 
     @Transactional
@@ -35,13 +269,16 @@ public class GradeService {
         if (grade.getFullScore() == null) {
             grade.setFullScore(new BigDecimal("100"));
         }
-        return gradeRepository.save(grade);
+        Grade saved = gradeRepository.save(grade);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public Grade update(Grade grade) {
         Grade existing = gradeRepository.findById(grade.getId())
                 .orElseThrow(() -> new RuntimeException("成绩记录不存在"));
+        Grade before = EntityChangeEvent.snapshot(existing);
         if (grade.getCourseName() != null) existing.setCourseName(grade.getCourseName());
         if (grade.getExamType() != null) existing.setExamType(grade.getExamType());
         if (grade.getScore() != null) existing.setScore(grade.getScore());
@@ -50,12 +287,17 @@ public class GradeService {
         if (grade.getAcademicYear() != null) existing.setAcademicYear(grade.getAcademicYear());
         if (grade.getExamDate() != null) existing.setExamDate(grade.getExamDate());
         if (grade.getRemark() != null) existing.setRemark(grade.getRemark());
-        return gradeRepository.save(existing);
+        Grade saved = gradeRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        gradeRepository.deleteById(id);
+        Grade existing = gradeRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("成绩记录不存在"));
+        gradeRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
 }
 
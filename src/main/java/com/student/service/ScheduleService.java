@@ -1,38 +1,81 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
+import com.student.dto.ScheduleDTO;
 import com.student.entity.Schedule;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.DtoProjections;
+import com.student.repository.KeysetPaginator;
 import com.student.repository.ScheduleRepository;
+import com.student.repository.ScheduleSpecifications;
+import com.student.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class ScheduleService {
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("dayOfWeek", "startTime", "createdAt"));
+
     @Autowired
     private ScheduleRepository scheduleRepository;
 
-    public List<Schedule> findAll(Integer classId, String semester, String academicYear, Integer dayOfWeek) {
-        List<Schedule> schedules = scheduleRepository.findAll();
-        
-        return schedules.stream()
-                .filter(s -> classId == null || s.getClassId().equals(classId))
-                .filter(s -> semester == null || (s.getSemester() != null && s.getSemester().equals(semester)))
-                .filter(s -> academicYear == null || (s.getAcademicYear() != null && s.getAcademicYear().equals(academicYear)))
-                .filter(s -> dayOfWeek == null || s.getDayOfWeek().equals(dayOfWeek))
-                .collect(Collectors.toList());
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 课程表列表，筛选与班级名称连接在同一条 SQL 中完成，直接查询到 DTO；
+     * 指定 fields（逗号分隔的字段名）时只查询并返回这些字段
+     */
+    public List<?> findAll(Integer classId, String semester, String academicYear, Integer dayOfWeek, String fields) {
+        return keysetPaginator.list(Schedule.class,
+                ScheduleSpecifications.filter(classId, semester, academicYear, dayOfWeek),
+                DtoProjections.SCHEDULE.narrow(fields));
+    }
+
+    /**
+     * 课程表列表游标分页，筛选与投影和 findAll 相同
+     */
+    public CursorPage<?> findPage(Integer classId, String semester, String academicYear, Integer dayOfWeek,
+                                  String fields, KeysetPageRequest page) {
+        return keysetPaginator.page(Schedule.class,
+                ScheduleSpecifications.filter(classId, semester, academicYear, dayOfWeek),
+                DtoProjections.SCHEDULE.narrow(fields), SORTABLE, page, scheduleRepository);
+    }
+
+    /**
+     * 课表增量同步：since 之后新增、修改的课表与已删除的 id
+     */
+    public ChangeSet<ScheduleDTO> findChanges(String since, Integer limit) {
+        return changeFeed.changes(Schedule.class, DtoProjections.SCHEDULE, scheduleRepository, since, limit);
     }
 
     @Transactional
     public Schedule save(Schedule schedule) {
-        return scheduleRepository.save(schedule);
+        Schedule saved = scheduleRepository.save(schedule);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public Schedule update(Schedule schedule) {
         Schedule existing = scheduleRepository.findById(schedule.getId())
                 .orElseThrow(() -> new RuntimeException("课表记录不存在"));
+        Schedule before = EntityChangeEvent.snapshot(existing);
         if (schedule.getCourseName() != null) existing.setCourseName(schedule.getCourseName());
         if (schedule.getTeacherName() != null) existing.setTeacherName(schedule.getTeacherName());
         if (schedule.getDayOfWeek() != null) existing.setDayOfWeek(schedule.getDayOfWeek());
@@ -41,12 +84,17 @@ public class ScheduleService {
         if (schedule.getClassroom() != null) existing.setClassroom(schedule.getClassroom());
         if (schedule.getSemester() != null) existing.setSemester(schedule.getSemester());
         if (schedule.getAcademicYear() != null) existing.setAcademicYear(schedule.getAcademicYear());
-        return scheduleRepository.save(existing);
+        Schedule saved = scheduleRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        scheduleRepository.deleteById(id);
+        Schedule existing = scheduleRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("课表记录不存在"));
+        scheduleRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
 }
 
@@ -0,0 +1,302 @@
+package com.student.service;
+
+import com.student.dto.StatisticsJobRequest;
+import com.student.event.EntityChangeEvent;
+import com.student.statistics.CubeQuery;
+import com.student.statistics.StatisticsFilter;
+import com.student.statistics.StatisticsPeriod;
+import com.student.statistics.StatisticsResultCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步统计任务
+ * <p>
+ * 耗时的统计在独立的有界线程池中执行，线程数即统计可同时占用的数据库连接数上限，
+ * 队列满时直接拒绝，避免挤占增删改查接口的线程和连接。
+ * 完成的结果保留一段时间，相同参数的重复提交直接返回已有任务；
+ * 相关实体写入提交后按统计类型失效，与 {@link StatisticsResultCache} 的依赖关系一致。
+ * 对比统计逐个区间计算，按已完成的区间数报告进度，其余任务只有一步。
+ */
+@Slf4j
+@Service
+public class StatisticsJobService {
+    public static final String QUEUED = "排队中";
+    public static final String RUNNING = "运行中";
+    public static final String SUCCEEDED = "已完成";
+    public static final String FAILED = "失败";
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Value("${statistics.jobs.pool-size:2}")
+    private int poolSize;
+
+    @Value("${statistics.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${statistics.jobs.result-ttl-ms:600000}")
+    private long resultTtlMs;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<StatisticsJobRequest, String> jobIdsByRequest = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "statistics-job-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交统计任务；相同参数且未过期（排队、运行中或已完成）的任务直接返回
+     */
+    public synchronized Map<String, Object> submit(StatisticsJobRequest request) {
+        Plan plan = plan(request);
+
+        String existingId = jobIdsByRequest.get(request);
+        Job existing = existingId != null ? jobs.get(existingId) : null;
+        if (existing != null && !FAILED.equals(existing.status) && !existing.isExpired(System.currentTimeMillis())) {
+            return view(existing);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), request, plan.type, plan.steps);
+        try {
+            job.future = executor.submit(() -> run(job, plan.work));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("统计任务过多，请稍后重试");
+        }
+        jobs.put(job.id, job);
+        jobIdsByRequest.put(request, job.id);
+        return view(job);
+    }
+
+    public Map<String, Object> findById(String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.isExpired(System.currentTimeMillis())) {
+            throw new RuntimeException("统计任务不存在");
+        }
+        return view(job);
+    }
+
+    /**
+     * 清理过期的已完成任务
+     */
+    @Scheduled(fixedDelayString = "${statistics.jobs.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Job> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            Job job = it.next();
+            if (job.isExpired(now)) {
+                it.remove();
+                jobIdsByRequest.remove(job.request, job.id);
+            }
+        }
+    }
+
+    /**
+     * 写入提交后：已完成的相关任务直接丢弃；排队、运行中的可能读到写入前的数据，不再用于去重
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onEntityChange(EntityChangeEvent event) {
+        Iterator<Job> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            Job job = it.next();
+            if (!StatisticsResultCache.dependsOn(job.type, event)) {
+                continue;
+            }
+            jobIdsByRequest.remove(job.request, job.id);
+            if (job.finishedAt != null) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 校验参数并生成任务内容，参数错误在提交时即抛出
+     */
+    private Plan plan(StatisticsJobRequest r) {
+        if (r.getKind() == null) {
+            throw new IllegalArgumentException("kind 不能为空");
+        }
+        switch (r.getKind()) {
+            case "count":
+                requireType(r);
+                return new Plan(r.getType(), 1, step -> statisticsService.getCount(r.getType(),
+                        r.getStart_date(), r.getEnd_date(), r.getGrade(), r.getDepartment(), r.getClass_id(), r.getStatus()));
+            case "trend":
+                requireType(r);
+                String groupBy = r.getGroup_by() != null ? r.getGroup_by() : "day";
+                return new Plan(r.getType(), 1,
+                        step -> statisticsService.getTrend(r.getType(), groupBy, r.getStart_date(), r.getEnd_date()));
+            case "compare":
+                requireType(r);
+                if (r.getPeriods() == null || r.getPeriods().isEmpty()) {
+                    throw new IllegalArgumentException("periods 不能为空");
+                }
+                List<StatisticsPeriod> periods = new ArrayList<>();
+                for (String period : r.getPeriods()) {
+                    periods.add(StatisticsPeriod.parse(period));
+                }
+                return new Plan(r.getType(), periods.size(), step -> {
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    for (StatisticsPeriod period : periods) {
+                        Map<String, Object> single = statisticsService.getCompare(r.getType(),
+                                Collections.singletonList(period), r.getGrade(), r.getDepartment(), r.getClass_id());
+                        rows.addAll(periodRows(single));
+                        step.run();
+                    }
+                    return StatisticsService.compareResult(rows);
+                });
+            case "cube":
+                CubeQuery.of(r.getSource(), r.getDimensions(), r.getMeasures(), r.getTime_bucket(),
+                        new StatisticsFilter(r.getStart_date(), r.getEnd_date(), r.getGrade(), r.getDepartment(),
+                                r.getClass_id(), r.getStatus()));
+                return new Plan(r.getSource(), 1, step -> statisticsService.getCube(r.getSource(),
+                        r.getDimensions(), r.getMeasures(), r.getTime_bucket(), r.getStart_date(), r.getEnd_date(),
+                        r.getGrade(), r.getDepartment(), r.getClass_id(), r.getStatus()));
+            default:
+                throw new IllegalArgumentException("不支持的任务类型: " + r.getKind());
+        }
+    }
+
+    private void requireType(StatisticsJobRequest r) {
+        if (r.getType() == null) {
+            throw new IllegalArgumentException("type 不能为空");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> periodRows(Map<String, Object> compare) {
+        Object rows = compare.get("periods");
+        return rows != null ? (List<Map<String, Object>>) rows : Collections.emptyList();
+    }
+
+    private Object run(Job job, Work work) {
+        job.status = RUNNING;
+        job.startedAt = LocalDateTime.now();
+        try {
+            job.result = work.run(job.stepsDone::incrementAndGet);
+            job.stepsDone.set(job.steps);
+            job.status = SUCCEEDED;
+        } catch (Exception e) {
+            log.warn("统计任务 {} 执行失败", job.id, e);
+            job.error = e.getMessage();
+            job.status = FAILED;
+        } finally {
+            job.finishedAtMs = System.currentTimeMillis();
+            job.finishedAt = LocalDateTime.now();
+        }
+        return job.result;
+    }
+
+    private Map<String, Object> view(Job job) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", job.id);
+        m.put("kind", job.request.getKind());
+        m.put("status", job.status);
+        m.put("progress", job.stepsDone.get() * 100 / job.steps);
+        m.put("steps_done", job.stepsDone.get());
+        m.put("steps_total", job.steps);
+        if (QUEUED.equals(job.status)) {
+            m.put("queue_position", queuePosition(job));
+        }
+        m.put("submitted_at", job.submittedAt);
+        m.put("started_at", job.startedAt);
+        m.put("finished_at", job.finishedAt);
+        if (SUCCEEDED.equals(job.status)) {
+            m.put("result", job.result);
+        }
+        if (FAILED.equals(job.status)) {
+            m.put("error", job.error);
+        }
+        return m;
+    }
+
+    /**
+     * 排在该任务之前的任务数（从 1 开始）
+     */
+    private int queuePosition(Job job) {
+        int position = 1;
+        for (Runnable queued : executor.getQueue()) {
+            if (queued == job.future) return position;
+            position++;
+        }
+        return 0;
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        /**
+         * @param step 每完成一步调用一次
+         */
+        Object run(Runnable step) throws Exception;
+    }
+
+    /**
+     * 任务内容：所属统计类型（用于失效）、步数和计算过程
+     */
+    private static class Plan {
+        final String type;
+        final int steps;
+        final Work work;
+
+        Plan(String type, int steps, Work work) {
+            this.type = type;
+            this.steps = steps;
+            this.work = work;
+        }
+    }
+
+    private class Job {
+        final String id;
+        final StatisticsJobRequest request;
+        final String type;
+        final int steps;
+        final AtomicInteger stepsDone = new AtomicInteger();
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        volatile Future<Object> future;
+        volatile String status = QUEUED;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedAtMs;
+        volatile Object result;
+        volatile String error;
+
+        Job(String id, StatisticsJobRequest request, String type, int steps) {
+            this.id = id;
+            this.request = request;
+            this.type = type;
+            this.steps = steps;
+        }
+
+        boolean isExpired(long now) {
+            return finishedAt != null && now - finishedAtMs > resultTtlMs;
+        }
+    }
+}
@@ -1,25 +1,53 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.CursorPage;
 import com.student.entity.StudentRecord;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.DtoProjections;
+import com.student.repository.KeysetPaginator;
 import com.student.repository.StudentRecordRepository;
+import com.student.repository.StudentRecordSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class StudentRecordService {
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("studentId", "createdAt"));
+
     @Autowired
     private StudentRecordRepository recordRepository;
 
-    public List<StudentRecord> findAll(Integer studentId, String recordStatus) {
-        List<StudentRecord> records = recordRepository.findAll();
-        
-        return records.stream()
-                .filter(r -> studentId == null || r.getStudentId().equals(studentId))
-                .filter(r -> recordStatus == null || r.getRecordStatus().name().equals(recordStatus))
-                .collect(Collectors.toList());
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 学籍档案列表，筛选与学生/班级名称连接在同一条 SQL 中完成，直接查询到 DTO；
+     * 指定 fields（逗号分隔的字段名）时只查询并返回这些字段
+     */
+    public List<?> findAll(Integer studentId, String recordStatus, String fields) {
+        return keysetPaginator.list(StudentRecord.class,
+                StudentRecordSpecifications.filter(studentId, recordStatus),
+                DtoProjections.RECORD.narrow(fields));
+    }
+
+    /**
+     * 学籍档案列表游标分页，筛选与投影和 findAll 相同
+     */
+    public CursorPage<?> findPage(Integer studentId, String recordStatus, String fields, KeysetPageRequest page) {
+        return keysetPaginator.page(StudentRecord.class,
+                StudentRecordSpecifications.filter(studentId, recordStatus),
+                DtoProjections.RECORD.narrow(fields), SORTABLE, page, recordRepository);
     }
 
     public StudentRecord findById(Integer id) {
@@ -39,12 +67,15 @@ public class StudentRecordService {
         if (record.getRecordStatus() == null) {
             record.setRecordStatus(StudentRecord.RecordStatus.正常);
         }
-        return recordRepository.save(record);
+        StudentRecord saved = recordRepository.save(record);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public StudentRecord update(StudentRecord record) {
         StudentRecord existing = findById(record.getId());
+        StudentRecord before = EntityChangeEvent.snapshot(existing);
         if (record.getIdCard() != null) existing.setIdCard(record.getIdCard());
         if (record.getNationality() != null) existing.setNationality(record.getNationality());
         if (record.getEthnicity() != null) existing.setEthnicity(record.getEthnicity());
@@ -54,12 +85,16 @@ public class StudentRecordService {
         if (record.getGuardianPhone() != null) existing.setGuardianPhone(record.getGuardianPhone());
         if (record.getPreviousSchool() != null) existing.setPreviousSchool(record.getPreviousSchool());
         if (record.getRecordStatus() != null) existing.setRecordStatus(record.getRecordStatus());
-        return recordRepository.save(existing);
+        StudentRecord saved = recordRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        recordRepository.deleteById(id);
+        StudentRecord existing = findById(id);
+        recordRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
 }
 
@@ -1,44 +1,115 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
+import com.student.dto.StudentWithClassDTO;
 import com.student.entity.Student;
-import com.student.entity.Class;
-import com.student.repository.StudentRepository;
+import com.student.entity.StudentRecord;
+import com.student.event.CascadeDeletes;
+import com.student.event.EntityChangeEvent;
 import com.student.repository.ClassRepository;
+import com.student.repository.DtoProjections;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.StudentRepository;
+import com.student.repository.StudentSpecifications;
+import com.student.search.StudentSearchIndex;
+import com.student.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class StudentService {
+    private static final String INSERT_SQL = "INSERT INTO students (student_no, name, gender, birth_date, phone, email, "
+            + "address, class_id, enrollment_date, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("studentNo", "name", "enrollmentDate", "createdAt"));
+
     @Autowired
     private StudentRepository studentRepository;
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ChangeFeed changeFeed;
     
     @Autowired
     private ClassRepository classRepository;
 
-    public List<Student> findAll(String name, String studentNo, Integer classId, String grade,
-                                String department, String status, LocalDate startDate, LocalDate endDate) {
-        List<Student> students = studentRepository.findAll();
-        
-        return students.stream()
-                .filter(s -> name == null || s.getName().contains(name))
-                .filter(s -> studentNo == null || s.getStudentNo().contains(studentNo))
-                .filter(s -> classId == null || s.getClassId().equals(classId))
-                .filter(s -> status == null || s.getStatus().name().equals(status))
-                .filter(s -> startDate == null || (s.getEnrollmentDate() != null && !s.getEnrollmentDate().isBefore(startDate)))
-                .filter(s -> endDate == null || (s.getEnrollmentDate() != null && !s.getEnrollmentDate().isAfter(endDate)))
-                .filter(s -> {
-                    if (grade == null && department == null) return true;
-                    Class clazz = classRepository.findById(s.getClassId()).orElse(null);
-                    if (clazz == null) return false;
-                    if (grade != null && !clazz.getGrade().equals(grade)) return false;
-                    if (department != null && !clazz.getDepartment().equals(department)) return false;
-                    return true;
-                })
-                .collect(Collectors.toList());
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CascadeDeletes cascadeDeletes;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StudentSearchIndex searchIndex;
+
+    @Value("${search.max-limit:50}")
+    private int searchMaxLimit;
+
+    @Value("${students.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    @Value("${students.bulk.max-rows:10000}")
+    private int bulkMaxRows;
+
+    /**
+     * 学生列表，筛选与学生/班级名称连接在同一条 SQL 中完成，直接查询到 DTO；
+     * 指定 fields（逗号分隔的字段名）时只查询并返回这些字段
+     */
+    public List<?> findAll(String name, String studentNo, Integer classId, String grade, String department,
+                           String status, LocalDate startDate, LocalDate endDate, String fields) {
+        return keysetPaginator.list(Student.class,
+                StudentSpecifications.filter(name, studentNo, classId, grade, department, status, startDate, endDate),
+                DtoProjections.STUDENT.narrow(fields));
+    }
+
+    /**
+     * 学生列表游标分页，筛选与投影和 findAll 相同
+     */
+    public CursorPage<?> findPage(String name, String studentNo, Integer classId, String grade, String department,
+                                  String status, LocalDate startDate, LocalDate endDate, String fields,
+                                  KeysetPageRequest page) {
+        return keysetPaginator.page(Student.class,
+                StudentSpecifications.filter(name, studentNo, classId, grade, department, status, startDate, endDate),
+                DtoProjections.STUDENT.narrow(fields), SORTABLE, page, studentRepository);
+    }
+
+    /**
+     * 学生增量同步：since 之后新增、修改的学生与已删除的 id
+     */
+    public ChangeSet<StudentWithClassDTO> findChanges(String since, Integer limit) {
+        return changeFeed.changes(Student.class, DtoProjections.STUDENT, studentRepository, since, limit);
+    }
+
+    /**
+     * 按姓名、学号、班级名称、监护人姓名搜索学生（输入联想），走内存索引，不查询数据库
+     */
+    public List<Map<String, Object>> search(String query, int limit) {
+        return searchIndex.search(query, Math.min(limit, searchMaxLimit));
     }
 
     public Student findById(Integer id) {
@@ -53,14 +124,157 @@ public class StudentService {
         }
         Student saved = studentRepository.save(student);
         // 更新班级学生人数
-        updateClassStudentCount(student.getClassId());
+        classRepository.adjustStudentCount(saved.getClassId(), 1);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
         return saved;
     }
 
+    /**
+     * 批量导入学生：整批校验后以 JDBC 批量插入，每个涉及的班级只原子累加一次人数
+     * <p>
+     * 校验失败的行不插入，按行号返回错误；其余行在同一事务中写入。
+     */
+    @Transactional
+    public Map<String, Object> bulkCreate(List<Student> students, Map<Integer, String> rowErrors) {
+        if (students.size() > bulkMaxRows) {
+            throw new RuntimeException("单次最多导入 " + bulkMaxRows + " 名学生");
+        }
+        Map<Integer, String> errors = new TreeMap<>(rowErrors);
+        Set<Integer> classIds = new HashSet<>();
+        Set<String> studentNos = new HashSet<>();
+        for (Student s : students) {
+            if (s == null) continue;
+            if (s.getClassId() != null) classIds.add(s.getClassId());
+            if (s.getStudentNo() != null) studentNos.add(s.getStudentNo());
+        }
+        Set<Integer> existingClassIds = new HashSet<>();
+        classRepository.findAllById(classIds).forEach(c -> existingClassIds.add(c.getId()));
+        Set<String> existingNos = new HashSet<>();
+        List<String> nos = new ArrayList<>(studentNos);
+        for (int from = 0; from < nos.size(); from += bulkBatchSize) {
+            existingNos.addAll(studentRepository.findExistingStudentNos(
+                    nos.subList(from, Math.min(nos.size(), from + bulkBatchSize))));
+        }
+
+        List<Student> valid = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < students.size(); i++) {
+            Student s = students.get(i);
+            if (s == null) continue;
+            String error = validateForBulk(s, existingClassIds, existingNos, seen);
+            if (error != null) {
+                errors.put(i, error);
+                continue;
+            }
+            if (s.getStatus() == null) {
+                s.setStatus(Student.StudentStatus.在读);
+            }
+            valid.add(s);
+        }
+
+        batchInsert(valid);
+        evictQueryCacheAfterCommit(valid);
+        // 按班级 ID 顺序累加人数，并发导入之间不会因加锁顺序不同而死锁
+        Map<Integer, Integer> added = new TreeMap<>();
+        for (Student s : valid) {
+            added.merge(s.getClassId(), 1, Integer::sum);
+            eventPublisher.publishEvent(EntityChangeEvent.created(s));
+        }
+        added.forEach(classRepository::adjustStudentCount);
+
+        List<Map<String, Object>> errorRows = new ArrayList<>();
+        for (Map.Entry<Integer, String> e : errors.entrySet()) {
+            Student s = students.get(e.getKey());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("index", e.getKey());
+            row.put("student_no", s != null ? s.getStudentNo() : null);
+            row.put("message", e.getValue());
+            errorRows.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", students.size());
+        result.put("inserted", valid.size());
+        result.put("failed", errorRows.size());
+        result.put("errors", errorRows);
+        return result;
+    }
+
+    private String validateForBulk(Student s, Set<Integer> existingClassIds, Set<String> existingNos, Set<String> seen) {
+        if (s.getStudentNo() == null || s.getStudentNo().trim().isEmpty()) return "学号不能为空";
+        if (s.getStudentNo().length() > 20) return "学号不能超过20个字符";
+        if (s.getName() == null || s.getName().trim().isEmpty()) return "姓名不能为空";
+        if (s.getGender() == null) return "性别不能为空";
+        if (s.getClassId() == null) return "班级不能为空";
+        if (!existingClassIds.contains(s.getClassId())) return "班级不存在";
+        if (existingNos.contains(s.getStudentNo())) return "学号已存在";
+        if (!seen.add(s.getStudentNo())) return "学号在本批次中重复";
+        return null;
+    }
+
+    /**
+     * 分批执行 INSERT 并取回自增主键。id 使用 IDENTITY，Hibernate 无法对其批量插入，
+     * 这里直接用 JDBC 批处理（连接串开启 rewriteBatchedStatements 后合并为多行 INSERT）
+     */
+    private void batchInsert(List<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < students.size(); from += bulkBatchSize) {
+                    List<Student> chunk = students.subList(from, Math.min(students.size(), from + bulkBatchSize));
+                    for (Student s : chunk) {
+                        s.setCreatedAt(now);
+                        s.setUpdatedAt(now);
+                        ps.setString(1, s.getStudentNo());
+                        ps.setString(2, s.getName());
+                        ps.setString(3, s.getGender().name());
+                        ps.setObject(4, s.getBirthDate());
+                        ps.setString(5, s.getPhone());
+                        ps.setString(6, s.getEmail());
+                        ps.setString(7, s.getAddress());
+                        ps.setInt(8, s.getClassId());
+                        ps.setObject(9, s.getEnrollmentDate());
+                        ps.setString(10, s.getStatus().name());
+                        ps.setObject(11, now);
+                        ps.setObject(12, now);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = 0;
+                        while (keys.next() && i < chunk.size()) {
+                            chunk.get(i++).setId(keys.getInt(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * JDBC 批量写入绕过了 Hibernate，查询缓存不知道 students 表已变化；提交后清掉查询缓存，
+     * 避免按学号查到缓存中的旧结果
+     */
+    private void evictQueryCacheAfterCommit(List<Student> inserted) {
+        if (inserted.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+            }
+        });
+    }
+
     @Transactional
     public Student update(Student student) {
         Student existing = findById(student.getId());
         Integer oldClassId = existing.getClassId();
+        Student before = EntityChangeEvent.snapshot(existing);
         
         if (student.getName() != null) existing.setName(student.getName());
         if (student.getGender() != null) existing.setGender(student.getGender());
@@ -74,11 +288,17 @@ public class StudentService {
         
         Student saved = studentRepository.save(existing);
         
-        // 如果班级变更，更新两个班级的学生人数
+        // 如果班级变更，更新两个班级的学生人数；按班级 ID 顺序加锁，避免互相调班的并发请求死锁
         if (student.getClassId() != null && !student.getClassId().equals(oldClassId)) {
-            updateClassStudentCount(oldClassId);
-            updateClassStudentCount(student.getClassId());
+            if (oldClassId < student.getClassId()) {
+                classRepository.adjustStudentCount(oldClassId, -1);
+                classRepository.adjustStudentCount(student.getClassId(), 1);
+            } else {
+                classRepository.adjustStudentCount(student.getClassId(), 1);
+                classRepository.adjustStudentCount(oldClassId, -1);
+            }
         }
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
         
         return saved;
     }
@@ -87,17 +307,29 @@ public class StudentService {
     public void deleteById(Integer id) {
         Student student = findById(id);
         Integer classId = student.getClassId();
-        studentRepository.deleteById(id);
-        updateClassStudentCount(classId);
+        cascadeDeletes.beforeDelete(student);
+        studentRepository.delete(student);
+        classRepository.adjustStudentCount(classId, -1);
+        evictRecordCacheAfterCommit();
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(student));
     }
 
-    private void updateClassStudentCount(Integer classId) {
-        Class clazz = classRepository.findById(classId).orElse(null);
-        if (clazz != null) {
-            long count = studentRepository.findByClassId(classId).size();
-            clazz.setStudentCount((int) count);
-            classRepository.save(clazz);
+    /**
+     * 学籍随学生由外键级联删除，Hibernate 不知道；提交后清掉学籍实体缓存和查询缓存，
+     * 避免按 id 或按学生查到已不存在的学籍
+     */
+    private void evictRecordCacheAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                org.hibernate.Cache cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+                cache.evictEntityData(StudentRecord.class);
+                cache.evictQueryRegions();
+            }
+        });
     }
 }
 
@@ -1,32 +1,68 @@
 package com.student.service;
 
+import com.student.common.KeysetPageRequest;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
 import com.student.entity.Todo;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.ListProjection;
 import com.student.repository.TodoRepository;
+import com.student.repository.TodoSpecifications;
+import com.student.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class TodoService {
+    /** 列表分页允许的排序字段 */
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("createdAt", "dueDate"));
+
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 待办列表，筛选条件在 SQL 中完成
+     */
     public List<Todo> findAll(String status, String priority, LocalDate startDate, LocalDate endDate,
                              String assignee, Integer relatedStudentId, Integer relatedClassId) {
-        List<Todo> todos = todoRepository.findAll();
-        
-        return todos.stream()
-                .filter(t -> status == null || t.getStatus().name().equals(status))
-                .filter(t -> priority == null || t.getPriority().name().equals(priority))
-                .filter(t -> startDate == null || !t.getCreatedAt().toLocalDate().isBefore(startDate))
-                .filter(t -> endDate == null || !t.getCreatedAt().toLocalDate().isAfter(endDate))
-                .filter(t -> assignee == null || (t.getAssignee() != null && t.getAssignee().contains(assignee)))
-                .filter(t -> relatedStudentId == null || (t.getRelatedStudentId() != null && t.getRelatedStudentId().equals(relatedStudentId)))
-                .filter(t -> relatedClassId == null || (t.getRelatedClassId() != null && t.getRelatedClassId().equals(relatedClassId)))
-                .collect(Collectors.toList());
+        return keysetPaginator.list(Todo.class,
+                TodoSpecifications.filter(status, priority, startDate, endDate, assignee, relatedStudentId, relatedClassId),
+                ListProjection.entity());
+    }
+
+    /**
+     * 待办列表游标分页，筛选条件与 findAll 相同
+     */
+    public CursorPage<Todo> findPage(String status, String priority, LocalDate startDate, LocalDate endDate,
+                                     String assignee, Integer relatedStudentId, Integer relatedClassId,
+                                     KeysetPageRequest page) {
+        return keysetPaginator.page(Todo.class,
+                TodoSpecifications.filter(status, priority, startDate, endDate, assignee, relatedStudentId, relatedClassId),
+                SORTABLE, page, todoRepository);
+    }
+
+    /**
+     * 待办增量同步：since 之后新增、修改的待办与已删除的 id
+     */
+    public ChangeSet<Todo> findChanges(String since, Integer limit) {
+        return changeFeed.changes(Todo.class, ListProjection.entity(), todoRepository, since, limit);
     }
 
     public Todo findById(Integer id) {
@@ -42,12 +78,15 @@ public class TodoService {
         if (todo.getPriority() == null) {
             todo.setPriority(Todo.Priority.中);
         }
-        return todoRepository.save(todo);
+        Todo saved = todoRepository.save(todo);
+        eventPublisher.publishEvent(EntityChangeEvent.created(saved));
+        return saved;
     }
 
     @Transactional
     public Todo update(Todo todo) {
         Todo existing = findById(todo.getId());
+        Todo before = EntityChangeEvent.snapshot(existing);
         if (todo.getTitle() != null) existing.setTitle(todo.getTitle());
         if (todo.getDescription() != null) existing.setDescription(todo.getDescription());
         if (todo.getStatus() != null) existing.setStatus(todo.getStatus());
@@ -57,12 +96,16 @@ public class TodoService {
         if (todo.getRelatedStudentId() != null) existing.setRelatedStudentId(todo.getRelatedStudentId());
         if (todo.getRelatedClassId() != null) existing.setRelatedClassId(todo.getRelatedClassId());
         if (todo.getCompletedAt() != null) existing.setCompletedAt(todo.getCompletedAt());
-        return todoRepository.save(existing);
+        Todo saved = todoRepository.save(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.updated(before, saved));
+        return saved;
     }
 
     @Transactional
     public void deleteById(Integer id) {
-        todoRepository.deleteById(id);
+        Todo existing = findById(id);
+        todoRepository.delete(existing);
+        eventPublisher.publishEvent(EntityChangeEvent.deleted(existing));
     }
 }
 
@@ -0,0 +1,631 @@
+package com.student.statistics;
+
+import com.student.entity.Attendance;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 考勤/成绩的只读内存列式快照
+ * <p>
+ * 日期存 epochDay（int），考勤状态存枚举序号（byte），班级存稠密下标（int），
+ * 分数存“分”（两位小数 * 100，long），课程/学期/学年等字符串列按字典编码为 int（0 表示空）。
+ * 扫描方法只在原始数组上循环，不创建实体或装箱对象。
+ */
+final class ColumnarSnapshot {
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final long NO_SCORE = Long.MIN_VALUE;
+    static final int MIN_DAY = Integer.MIN_VALUE;
+    static final int MAX_DAY = Integer.MAX_VALUE;
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+    // 最后一格存放无法识别的状态
+    static final int STATUS_SLOTS = STATUSES.length + 1;
+
+    // 多维分组的维度编号
+    private static final int DIM_CLASS = 0;
+    private static final int DIM_GRADE = 1;
+    private static final int DIM_DEPARTMENT = 2;
+    private static final int DIM_COURSE = 3;
+    private static final int DIM_SEMESTER = 4;
+    private static final int DIM_ACADEMIC_YEAR = 5;
+    private static final int DIM_STATUS = 6;
+    private static final int DIM_TIME = 7;
+
+    // 班级维度：稠密下标 -> 班级ID / (年级, 部门) 分组下标 / 年级、部门字典编码
+    private final int[] classIds;
+    private final int[] classGroup;
+    private final String[] classGrades;
+    private final String[] classDepartments;
+    private final String[] groupGrades;
+    private final String[] groupDepartments;
+    private final int[] classGradeCode;
+    private final int[] classDepartmentCode;
+
+    // 字典：编码 -> 原值，下标 0 为 null
+    private final String[] gradeNames;
+    private final String[] departmentNames;
+    private final String[] courseNames;
+    private final String[] semesterNames;
+    private final String[] academicYearNames;
+
+    // 考勤列
+    private final int attendanceSize;
+    private final int[] attendanceDay;
+    private final byte[] attendanceStatus;
+    private final int[] attendanceClass;
+    private final int[] attendanceCourse;
+    private final int attendanceMinDay;
+    private final int attendanceMaxDay;
+
+    // 成绩列
+    private final int gradeSize;
+    private final int[] gradeDay;
+    private final int[] gradeClass;
+    private final long[] gradeScore;
+    private final int[] gradeCourse;
+    private final int[] gradeSemester;
+    private final int[] gradeAcademicYear;
+    private final int gradeMinDay;
+    private final int gradeMaxDay;
+
+    private final LocalDateTime loadedAt;
+
+    private ColumnarSnapshot(Builder b) {
+        this.classIds = Arrays.copyOf(b.classIds, b.classSize);
+        this.classGrades = b.classGrades.toArray(new String[0]);
+        this.classDepartments = b.classDepartments.toArray(new String[0]);
+
+        Map<List<String>, Integer> groups = new LinkedHashMap<>();
+        this.classGroup = new int[b.classSize];
+        for (int c = 0; c < b.classSize; c++) {
+            List<String> key = Arrays.asList(classGrades[c], classDepartments[c]);
+            Integer g = groups.get(key);
+            if (g == null) {
+                g = groups.size();
+                groups.put(key, g);
+            }
+            classGroup[c] = g;
+        }
+        this.groupGrades = new String[groups.size()];
+        this.groupDepartments = new String[groups.size()];
+        for (Map.Entry<List<String>, Integer> e : groups.entrySet()) {
+            groupGrades[e.getValue()] = e.getKey().get(0);
+            groupDepartments[e.getValue()] = e.getKey().get(1);
+        }
+
+        this.classGradeCode = Arrays.copyOf(b.classGradeCode, b.classSize);
+        this.classDepartmentCode = Arrays.copyOf(b.classDepartmentCode, b.classSize);
+        this.gradeNames = b.gradeDictionary.values();
+        this.departmentNames = b.departmentDictionary.values();
+        this.courseNames = b.courseDictionary.values();
+        this.semesterNames = b.semesterDictionary.values();
+        this.academicYearNames = b.academicYearDictionary.values();
+
+        this.attendanceSize = b.attendanceSize;
+        this.attendanceDay = Arrays.copyOf(b.attendanceDay, b.attendanceSize);
+        this.attendanceStatus = Arrays.copyOf(b.attendanceStatus, b.attendanceSize);
+        this.attendanceClass = Arrays.copyOf(b.attendanceClass, b.attendanceSize);
+        this.attendanceCourse = Arrays.copyOf(b.attendanceCourse, b.attendanceSize);
+        int[] attendanceRange = dayRange(attendanceDay, attendanceSize);
+        this.attendanceMinDay = attendanceRange[0];
+        this.attendanceMaxDay = attendanceRange[1];
+
+        this.gradeSize = b.gradeSize;
+        this.gradeDay = Arrays.copyOf(b.gradeDay, b.gradeSize);
+        this.gradeClass = Arrays.copyOf(b.gradeClass, b.gradeSize);
+        this.gradeScore = Arrays.copyOf(b.gradeScore, b.gradeSize);
+        this.gradeCourse = Arrays.copyOf(b.gradeCourse, b.gradeSize);
+        this.gradeSemester = Arrays.copyOf(b.gradeSemester, b.gradeSize);
+        this.gradeAcademicYear = Arrays.copyOf(b.gradeAcademicYear, b.gradeSize);
+        int[] gradeRange = dayRange(gradeDay, gradeSize);
+        this.gradeMinDay = gradeRange[0];
+        this.gradeMaxDay = gradeRange[1];
+
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 非空日期的 [最小, 最大] epochDay，没有数据时最小值大于最大值
+     */
+    private static int[] dayRange(int[] days, int size) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int d = days[i];
+            if (d == NO_DATE) continue;
+            if (d < min) min = d;
+            if (d > max) max = d;
+        }
+        return new int[]{min, max};
+    }
+
+    static int toDay(LocalDate date, int whenNull) {
+        return date != null ? (int) date.toEpochDay() : whenNull;
+    }
+
+    static String statusName(int slot) {
+        return slot < STATUSES.length ? STATUSES[slot].name() : "未知";
+    }
+
+    int attendanceSize() {
+        return attendanceSize;
+    }
+
+    int gradeSize() {
+        return gradeSize;
+    }
+
+    LocalDateTime loadedAt() {
+        return loadedAt;
+    }
+
+    int groupCount() {
+        return groupGrades.length;
+    }
+
+    String groupGrade(int group) {
+        return groupGrades[group];
+    }
+
+    String groupDepartment(int group) {
+        return groupDepartments[group];
+    }
+
+    /**
+     * 班级筛选掩码，下标为班级稠密下标
+     */
+    boolean[] classMask(String grade, String department, Integer classId) {
+        boolean[] mask = new boolean[classIds.length];
+        for (int c = 0; c < classIds.length; c++) {
+            mask[c] = (grade == null || grade.equals(classGrades[c]))
+                    && (department == null || department.equals(classDepartments[c]))
+                    && (classId == null || classId == classIds[c]);
+        }
+        return mask;
+    }
+
+    /**
+     * 考勤按 (年级, 部门) 组 × 状态 计数，结果下标为 group * STATUS_SLOTS + status
+     *
+     * @param status 状态序号，-1 表示不过滤
+     */
+    long[] countAttendanceByGroupStatus(int fromDay, int toDay, int status, boolean[] mask) {
+        long[] counts = new long[groupCount() * STATUS_SLOTS];
+        final int[] day = attendanceDay;
+        final byte[] st = attendanceStatus;
+        final int[] cls = attendanceClass;
+        for (int i = 0; i < attendanceSize; i++) {
+            int d = day[i];
+            if (d < fromDay || d > toDay) continue;
+            int s = st[i];
+            if (status >= 0 && s != status) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            counts[classGroup[c] * STATUS_SLOTS + s]++;
+        }
+        return counts;
+    }
+
+    /**
+     * 成绩按 (年级, 部门) 组汇总，结果下标 group * 3 + [记录数, 有分数的记录数, 分数和]
+     */
+    long[] sumGradesByGroup(int fromDay, int toDay, boolean[] mask) {
+        long[] totals = new long[groupCount() * 3];
+        boolean bounded = fromDay != MIN_DAY || toDay != MAX_DAY;
+        final int[] day = gradeDay;
+        final int[] cls = gradeClass;
+        final long[] score = gradeScore;
+        for (int i = 0; i < gradeSize; i++) {
+            int d = day[i];
+            if (d < fromDay || d > toDay || (bounded && d == NO_DATE)) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            int base = classGroup[c] * 3;
+            totals[base]++;
+            long s = score[i];
+            if (s != NO_SCORE) {
+                totals[base + 1]++;
+                totals[base + 2] += s;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 考勤按天汇总，结果下标 (day - fromDay) * 3 + [总数, 出勤数, 缺勤数]
+     */
+    long[] attendanceByDay(int fromDay, int toDay, boolean[] mask) {
+        long[] totals = new long[(toDay - fromDay + 1) * 3];
+        final int present = Attendance.AttendanceStatus.出勤.ordinal();
+        final int absent = Attendance.AttendanceStatus.缺勤.ordinal();
+        final int[] day = attendanceDay;
+        final byte[] st = attendanceStatus;
+        final int[] cls = attendanceClass;
+        for (int i = 0; i < attendanceSize; i++) {
+            int d = day[i];
+            if (d < fromDay || d > toDay) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            int base = (d - fromDay) * 3;
+            totals[base]++;
+            int s = st[i];
+            if (s == present) totals[base + 1]++;
+            else if (s == absent) totals[base + 2]++;
+        }
+        return totals;
+    }
+
+    /**
+     * 成绩按考试日期汇总，结果下标 (day - fromDay) * 3 + [记录数, 有分数的记录数, 分数和]
+     */
+    long[] gradesByDay(int fromDay, int toDay, boolean[] mask) {
+        long[] totals = new long[(toDay - fromDay + 1) * 3];
+        final int[] day = gradeDay;
+        final long[] score = gradeScore;
+        final int[] cls = gradeClass;
+        for (int i = 0; i < gradeSize; i++) {
+            int d = day[i];
+            if (d == NO_DATE || d < fromDay || d > toDay) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            int base = (d - fromDay) * 3;
+            totals[base]++;
+            long s = score[i];
+            if (s != NO_SCORE) {
+                totals[base + 1]++;
+                totals[base + 2] += s;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 考勤按区间汇总（一次扫描，一行可计入多个区间），结果下标 period * 2 + [总数, 出勤数]
+     */
+    long[] attendanceByPeriod(int[] fromDays, int[] toDays, boolean[] mask) {
+        int periods = fromDays.length;
+        long[] totals = new long[periods * 2];
+        final int present = Attendance.AttendanceStatus.出勤.ordinal();
+        final int[] day = attendanceDay;
+        final byte[] st = attendanceStatus;
+        final int[] cls = attendanceClass;
+        for (int i = 0; i < attendanceSize; i++) {
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            int d = day[i];
+            int isPresent = st[i] == present ? 1 : 0;
+            for (int p = 0; p < periods; p++) {
+                if (d < fromDays[p] || d > toDays[p]) continue;
+                totals[p * 2]++;
+                totals[p * 2 + 1] += isPresent;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 成绩按区间汇总（一次扫描，一行可计入多个区间），结果下标 period * 3 + [记录数, 有分数的记录数, 分数和]；
+     * 没有考试日期的记录不计入
+     */
+    long[] gradesByPeriod(int[] fromDays, int[] toDays, boolean[] mask) {
+        int periods = fromDays.length;
+        long[] totals = new long[periods * 3];
+        final int[] day = gradeDay;
+        final int[] cls = gradeClass;
+        final long[] score = gradeScore;
+        for (int i = 0; i < gradeSize; i++) {
+            int d = day[i];
+            if (d == NO_DATE) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            long s = score[i];
+            for (int p = 0; p < periods; p++) {
+                if (d < fromDays[p] || d > toDays[p]) continue;
+                totals[p * 3]++;
+                if (s != NO_SCORE) {
+                    totals[p * 3 + 1]++;
+                    totals[p * 3 + 2] += s;
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 多维分组：各维度编码按位拼成一个 long 组合键，一次扫描累加 [记录数, 出勤数/有分数的记录数, 分数和]
+     *
+     * @param status 考勤状态序号，-1 表示不过滤
+     */
+    List<Map<String, Object>> cube(CubeQuery query, boolean[] mask, int fromDay, int toDay, int status) {
+        final boolean attendance = query.isAttendance();
+        final int n = query.getDimensions().size();
+        final int[] dims = new int[n];
+        final int[] shifts = new int[n];
+        final long[] bitMasks = new long[n];
+
+        // 时间维度：数据覆盖的每一天预先映射到桶编码（0 表示无日期）
+        int minDay = attendance ? attendanceMinDay : gradeMinDay;
+        int maxDay = attendance ? attendanceMaxDay : gradeMaxDay;
+        int[] timeCode = new int[Math.max(0, maxDay - minDay + 1)];
+        List<String> timeLabels = new ArrayList<>();
+        timeLabels.add("未知");
+        if (query.getDimensions().contains(CubeQuery.TIME)) {
+            Map<String, Integer> codes = new HashMap<>();
+            for (int d = minDay; d <= maxDay; d++) {
+                String label = query.timeLabel(LocalDate.ofEpochDay(d));
+                Integer code = codes.get(label);
+                if (code == null) {
+                    code = timeLabels.size();
+                    codes.put(label, code);
+                    timeLabels.add(label);
+                }
+                timeCode[d - minDay] = code;
+            }
+        }
+
+        int shift = 0;
+        for (int k = 0; k < n; k++) {
+            dims[k] = dimensionId(query.getDimensions().get(k));
+            int cardinality = cardinality(dims[k], timeLabels.size());
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(cardinality - 1));
+            shifts[k] = shift;
+            bitMasks[k] = (1L << bits) - 1;
+            shift += bits;
+        }
+        if (shift > 63) {
+            throw new IllegalArgumentException("维度组合过多，无法在快照中分组");
+        }
+
+        LongGroupTable table = new LongGroupTable();
+        final int size = attendance ? attendanceSize : gradeSize;
+        final int[] day = attendance ? attendanceDay : gradeDay;
+        final int[] cls = attendance ? attendanceClass : gradeClass;
+        final int present = Attendance.AttendanceStatus.出勤.ordinal();
+        final boolean bounded = fromDay != MIN_DAY || toDay != MAX_DAY;
+        for (int i = 0; i < size; i++) {
+            int d = day[i];
+            if (d < fromDay || d > toDay || (bounded && d == NO_DATE)) continue;
+            int c = cls[i];
+            if (c < 0 || !mask[c]) continue;
+            if (attendance && status >= 0 && attendanceStatus[i] != status) continue;
+
+            long key = 0;
+            for (int k = 0; k < n; k++) {
+                int code;
+                switch (dims[k]) {
+                    case DIM_CLASS:
+                        code = c + 1;
+                        break;
+                    case DIM_GRADE:
+                        code = classGradeCode[c];
+                        break;
+                    case DIM_DEPARTMENT:
+                        code = classDepartmentCode[c];
+                        break;
+                    case DIM_COURSE:
+                        code = attendance ? attendanceCourse[i] : gradeCourse[i];
+                        break;
+                    case DIM_SEMESTER:
+                        code = gradeSemester[i];
+                        break;
+                    case DIM_ACADEMIC_YEAR:
+                        code = gradeAcademicYear[i];
+                        break;
+                    case DIM_STATUS:
+                        code = attendanceStatus[i];
+                        break;
+                    default:
+                        code = d == NO_DATE ? 0 : timeCode[d - minDay];
+                }
+                key |= (long) code << shifts[k];
+            }
+
+            if (attendance) {
+                table.add(key, 1, attendanceStatus[i] == present ? 1 : 0, 0);
+            } else {
+                long score = gradeScore[i];
+                table.add(key, 1, score != NO_SCORE ? 1 : 0, score != NO_SCORE ? score : 0);
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int slot = 0; slot < table.capacity(); slot++) {
+            if (!table.isUsed(slot)) continue;
+            long key = table.key(slot);
+            Object[] values = new Object[n];
+            for (int k = 0; k < n; k++) {
+                values[k] = label(dims[k], (int) ((key >>> shifts[k]) & bitMasks[k]), timeLabels);
+            }
+            rows.add(query.row(values, table.value(slot, 0), table.value(slot, 1), table.value(slot, 2)));
+        }
+        query.sort(rows);
+        return rows;
+    }
+
+    private static int dimensionId(String dimension) {
+        switch (dimension) {
+            case CubeQuery.CLASS:
+                return DIM_CLASS;
+            case CubeQuery.GRADE:
+                return DIM_GRADE;
+            case CubeQuery.DEPARTMENT:
+                return DIM_DEPARTMENT;
+            case CubeQuery.COURSE:
+                return DIM_COURSE;
+            case CubeQuery.SEMESTER:
+                return DIM_SEMESTER;
+            case CubeQuery.ACADEMIC_YEAR:
+                return DIM_ACADEMIC_YEAR;
+            case CubeQuery.STATUS:
+                return DIM_STATUS;
+            case CubeQuery.TIME:
+                return DIM_TIME;
+            default:
+                throw new IllegalArgumentException("不支持的维度: " + dimension);
+        }
+    }
+
+    private int cardinality(int dimension, int timeBuckets) {
+        switch (dimension) {
+            case DIM_CLASS:
+                return classIds.length + 1;
+            case DIM_GRADE:
+                return gradeNames.length;
+            case DIM_DEPARTMENT:
+                return departmentNames.length;
+            case DIM_COURSE:
+                return courseNames.length;
+            case DIM_SEMESTER:
+                return semesterNames.length;
+            case DIM_ACADEMIC_YEAR:
+                return academicYearNames.length;
+            case DIM_STATUS:
+                return STATUS_SLOTS;
+            default:
+                return timeBuckets;
+        }
+    }
+
+    private Object label(int dimension, int code, List<String> timeLabels) {
+        switch (dimension) {
+            case DIM_CLASS:
+                return classIds[code - 1];
+            case DIM_GRADE:
+                return StatisticsSupport.orUnknown(gradeNames[code]);
+            case DIM_DEPARTMENT:
+                return StatisticsSupport.orUnknown(departmentNames[code]);
+            case DIM_COURSE:
+                return StatisticsSupport.orUnknown(courseNames[code]);
+            case DIM_SEMESTER:
+                return StatisticsSupport.orUnknown(semesterNames[code]);
+            case DIM_ACADEMIC_YEAR:
+                return StatisticsSupport.orUnknown(academicYearNames[code]);
+            case DIM_STATUS:
+                return statusName(code);
+            default:
+                return timeLabels.get(code);
+        }
+    }
+
+    /**
+     * 逐行构建快照；班级需先于考勤/成绩加入
+     */
+    static final class Builder {
+        private int[] classIds = new int[64];
+        private int classSize;
+        private final List<String> classGrades = new ArrayList<>();
+        private final List<String> classDepartments = new ArrayList<>();
+        private final Map<Integer, Integer> classIndex = new HashMap<>();
+        private int[] classGradeCode = new int[64];
+        private int[] classDepartmentCode = new int[64];
+
+        private final Dictionary gradeDictionary = new Dictionary();
+        private final Dictionary departmentDictionary = new Dictionary();
+        private final Dictionary courseDictionary = new Dictionary();
+        private final Dictionary semesterDictionary = new Dictionary();
+        private final Dictionary academicYearDictionary = new Dictionary();
+
+        private int attendanceSize;
+        private int[] attendanceDay = new int[1024];
+        private byte[] attendanceStatus = new byte[1024];
+        private int[] attendanceClass = new int[1024];
+        private int[] attendanceCourse = new int[1024];
+
+        private int gradeSize;
+        private int[] gradeDay = new int[1024];
+        private int[] gradeClass = new int[1024];
+        private long[] gradeScore = new long[1024];
+        private int[] gradeCourse = new int[1024];
+        private int[] gradeSemester = new int[1024];
+        private int[] gradeAcademicYear = new int[1024];
+
+        private final Map<String, Byte> statusSlots = new HashMap<>();
+
+        Builder() {
+            for (Attendance.AttendanceStatus s : STATUSES) {
+                statusSlots.put(s.name(), (byte) s.ordinal());
+            }
+        }
+
+        void addClass(int id, String grade, String department) {
+            if (classSize == classIds.length) {
+                classIds = Arrays.copyOf(classIds, classSize * 2);
+                classGradeCode = Arrays.copyOf(classGradeCode, classSize * 2);
+                classDepartmentCode = Arrays.copyOf(classDepartmentCode, classSize * 2);
+            }
+            classIndex.put(id, classSize);
+            classGradeCode[classSize] = gradeDictionary.code(grade);
+            classDepartmentCode[classSize] = departmentDictionary.code(department);
+            classIds[classSize++] = id;
+            classGrades.add(grade);
+            classDepartments.add(department);
+        }
+
+        void addAttendance(LocalDate date, String status, int classId, String courseName) {
+            if (date == null) return;
+            if (attendanceSize == attendanceDay.length) {
+                int capacity = attendanceSize * 2;
+                attendanceDay = Arrays.copyOf(attendanceDay, capacity);
+                attendanceStatus = Arrays.copyOf(attendanceStatus, capacity);
+                attendanceClass = Arrays.copyOf(attendanceClass, capacity);
+                attendanceCourse = Arrays.copyOf(attendanceCourse, capacity);
+            }
+            Byte slot = status != null ? statusSlots.get(status) : null;
+            attendanceDay[attendanceSize] = (int) date.toEpochDay();
+            attendanceStatus[attendanceSize] = slot != null ? slot : (byte) STATUSES.length;
+            attendanceClass[attendanceSize] = classIndex.getOrDefault(classId, -1);
+            attendanceCourse[attendanceSize] = courseDictionary.code(courseName);
+            attendanceSize++;
+        }
+
+        void addGrade(LocalDate examDate, int classId, BigDecimal score,
+                      String courseName, String semester, String academicYear) {
+            if (gradeSize == gradeDay.length) {
+                int capacity = gradeSize * 2;
+                gradeDay = Arrays.copyOf(gradeDay, capacity);
+                gradeClass = Arrays.copyOf(gradeClass, capacity);
+                gradeScore = Arrays.copyOf(gradeScore, capacity);
+                gradeCourse = Arrays.copyOf(gradeCourse, capacity);
+                gradeSemester = Arrays.copyOf(gradeSemester, capacity);
+                gradeAcademicYear = Arrays.copyOf(gradeAcademicYear, capacity);
+            }
+            gradeDay[gradeSize] = toDay(examDate, NO_DATE);
+            gradeClass[gradeSize] = classIndex.getOrDefault(classId, -1);
+            gradeScore[gradeSize] = score != null ? StatisticsSupport.toHundredths(score) : NO_SCORE;
+            gradeCourse[gradeSize] = courseDictionary.code(courseName);
+            gradeSemester[gradeSize] = semesterDictionary.code(semester);
+            gradeAcademicYear[gradeSize] = academicYearDictionary.code(academicYear);
+            gradeSize++;
+        }
+
+        ColumnarSnapshot build() {
+            return new ColumnarSnapshot(this);
+        }
+    }
+
+    /**
+     * 字符串字典编码，null 固定为 0
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>(Collections.singletonList(null));
+
+        int code(String value) {
+            if (value == null) return 0;
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+}
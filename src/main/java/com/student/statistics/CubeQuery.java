@@ -0,0 +1,174 @@
+package com.student.statistics;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.*;
+
+/**
+ * 多维统计查询：数据源 + 维度 + 指标 + 筛选条件
+ * <p>
+ * 维度和指标只能取白名单中的值，各引擎据此生成一条分组 SQL 或一次快照扫描。
+ */
+@Value
+public class CubeQuery {
+    public static final String ATTENDANCE = "attendance";
+    public static final String GRADES = "grades";
+
+    public static final String CLASS = "class";
+    public static final String GRADE = "grade";
+    public static final String DEPARTMENT = "department";
+    public static final String COURSE = "course";
+    public static final String SEMESTER = "semester";
+    public static final String ACADEMIC_YEAR = "academic_year";
+    public static final String STATUS = "status";
+    public static final String TIME = "time";
+
+    private static final Map<String, Set<String>> DIMENSIONS = new HashMap<>();
+    private static final Map<String, Set<String>> MEASURES = new HashMap<>();
+    private static final Set<String> TIME_BUCKETS = new HashSet<>(Arrays.asList("day", "week", "month", "year"));
+
+    static {
+        DIMENSIONS.put(ATTENDANCE, new HashSet<>(Arrays.asList(CLASS, GRADE, DEPARTMENT, COURSE, STATUS, TIME)));
+        DIMENSIONS.put(GRADES, new HashSet<>(Arrays.asList(CLASS, GRADE, DEPARTMENT, COURSE, SEMESTER, ACADEMIC_YEAR, TIME)));
+        MEASURES.put(ATTENDANCE, new HashSet<>(Arrays.asList("count", "rate")));
+        MEASURES.put(GRADES, new HashSet<>(Arrays.asList("count", "avg", "sum")));
+    }
+
+    String source;
+    List<String> dimensions;
+    List<String> measures;
+    String timeBucket;
+    StatisticsFilter filter;
+
+    /**
+     * 校验并创建查询，不支持的数据源/维度/指标抛出 IllegalArgumentException
+     */
+    public static CubeQuery of(String source,
+                               List<String> dimensions,
+                               List<String> measures,
+                               String timeBucket,
+                               StatisticsFilter filter) {
+        if (!DIMENSIONS.containsKey(source)) {
+            throw new IllegalArgumentException("不支持的数据源: " + source);
+        }
+        List<String> dims = dimensions != null ? new ArrayList<>(new LinkedHashSet<>(dimensions)) : new ArrayList<>();
+        for (String d : dims) {
+            if (!DIMENSIONS.get(source).contains(d)) {
+                throw new IllegalArgumentException("数据源 " + source + " 不支持维度: " + d);
+            }
+        }
+        List<String> ms = measures != null && !measures.isEmpty()
+                ? new ArrayList<>(new LinkedHashSet<>(measures)) : Collections.singletonList("count");
+        for (String m : ms) {
+            if (!MEASURES.get(source).contains(m)) {
+                throw new IllegalArgumentException("数据源 " + source + " 不支持指标: " + m);
+            }
+        }
+        String bucket = timeBucket != null ? timeBucket : "month";
+        if (!TIME_BUCKETS.contains(bucket)) {
+            throw new IllegalArgumentException("不支持的时间粒度: " + timeBucket);
+        }
+        return new CubeQuery(source, Collections.unmodifiableList(dims), Collections.unmodifiableList(ms), bucket, filter);
+    }
+
+    public boolean isAttendance() {
+        return ATTENDANCE.equals(source);
+    }
+
+    /**
+     * 维度在结果中的字段名
+     */
+    public static String column(String dimension) {
+        switch (dimension) {
+            case CLASS:
+                return "class_id";
+            case TIME:
+                return "date";
+            default:
+                return dimension;
+        }
+    }
+
+    /**
+     * 时间维度的标签，与 SQL 中 {@link #sqlTimeFormat()} 的结果一致
+     */
+    public String timeLabel(LocalDate date) {
+        switch (timeBucket) {
+            case "day":
+                return date.format(DateTimeFormatter.ISO_LOCAL_DATE);
+            case "week":
+                return String.format("%d-%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case "year":
+                return String.valueOf(date.getYear());
+            default:
+                return String.format("%d-%02d", date.getYear(), date.getMonthValue());
+        }
+    }
+
+    /**
+     * MySQL DATE_FORMAT 格式，周按 ISO 周（%x-%v）
+     */
+    public String sqlTimeFormat() {
+        switch (timeBucket) {
+            case "day":
+                return "%Y-%m-%d";
+            case "week":
+                return "%x-%v";
+            case "year":
+                return "%Y";
+            default:
+                return "%Y-%m";
+        }
+    }
+
+    /**
+     * 生成一行结果：维度字段 + 所选指标
+     *
+     * @param part          考勤为出勤数，成绩为有分数的记录数
+     * @param sumHundredths 成绩分数和（两位小数 * 100）
+     */
+    public Map<String, Object> row(Object[] dimensionValues, long count, long part, long sumHundredths) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            m.put(column(dimensions.get(i)), dimensionValues[i]);
+        }
+        for (String measure : measures) {
+            switch (measure) {
+                case "count":
+                    m.put("count", count);
+                    break;
+                case "rate":
+                    m.put("rate", StatisticsSupport.rate(part, count));
+                    break;
+                case "avg":
+                    m.put("avg", StatisticsSupport.avgScore(sumHundredths, part));
+                    break;
+                case "sum":
+                    m.put("sum", BigDecimal.valueOf(sumHundredths, 2));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * 按维度字段依次排序，保证两种引擎输出顺序一致
+     */
+    public void sort(List<Map<String, Object>> rows) {
+        Comparator<Map<String, Object>> order = (a, b) -> 0;
+        for (String d : dimensions) {
+            String col = column(d);
+            order = order.thenComparing(r -> r.get(col),
+                    Comparator.nullsFirst((x, y) -> x instanceof Integer && y instanceof Integer
+                            ? Integer.compare((Integer) x, (Integer) y)
+                            : String.valueOf(x).compareTo(String.valueOf(y))));
+        }
+        rows.sort(order);
+    }
+}
@@ -0,0 +1,242 @@
+package com.student.statistics;
+
+import com.student.entity.Attendance;
+import com.student.entity.Class;
+import com.student.entity.Grade;
+import com.student.event.CascadeDeleteEvent;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.AttendanceDailyStatRepository;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.GradeDailyStatRepository;
+import com.student.repository.GradeRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 考勤/成绩日汇总表维护
+ * <p>
+ * 考勤、成绩写入时在同一事务内累积增量，提交前按主键顺序合并写入
+ * attendance_daily_stats / grade_daily_stats（INSERT ... ON DUPLICATE KEY UPDATE），
+ * 一个事务内多次写同一天同一班级只产生一条语句。{@link #rebuild()} 从原始表全量回填。
+ * <p>
+ * 删除学生时按 {@link CascadeDeleteEvent} 中级联删除的考勤、成绩扣减，删除班级时提交前直接删除该班级的汇总行；
+ * 另有定时全量重建兜底。
+ */
+@Slf4j
+@Component
+public class DailyRollupMaintainer {
+    private static final Comparator<AttendanceKey> ATTENDANCE_KEY_ORDER = Comparator
+            .comparing(AttendanceKey::getStatDate)
+            .thenComparing(AttendanceKey::getClassId)
+            .thenComparing(AttendanceKey::getStatus);
+    private static final Comparator<GradeKey> GRADE_KEY_ORDER = Comparator
+            .comparing(GradeKey::getStatDate)
+            .thenComparing(GradeKey::getClassId);
+
+    @Autowired
+    private AttendanceDailyStatRepository attendanceDailyStatRepository;
+
+    @Autowired
+    private GradeDailyStatRepository gradeDailyStatRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isAbout(Attendance.class)) {
+            PendingDeltas deltas = pendingDeltas();
+            deltas.addAttendance(event.getBefore(Attendance.class), -1);
+            deltas.addAttendance(event.getAfter(Attendance.class), 1);
+            flushIfNoTransaction(deltas);
+        } else if (event.isAbout(Grade.class)) {
+            PendingDeltas deltas = pendingDeltas();
+            deltas.addGrade(event.getBefore(Grade.class), -1);
+            deltas.addGrade(event.getAfter(Grade.class), 1);
+            flushIfNoTransaction(deltas);
+        }
+    }
+
+    @EventListener
+    public void onCascadeDelete(CascadeDeleteEvent event) {
+        PendingDeltas deltas = pendingDeltas();
+        if (event.isAbout(Class.class)) {
+            deltas.deletedClasses.add(event.getParentId());
+        } else {
+            event.getAttendance().forEach(a -> deltas.addAttendance(a, -1));
+            event.getGrades().forEach(g -> deltas.addGrade(g, -1));
+        }
+        flushIfNoTransaction(deltas);
+    }
+
+    /**
+     * 定时全量重建，修正增量维护之外的改动（手工改库、异常中断等）造成的偏差
+     */
+    @Scheduled(initialDelayString = "${statistics.rollup.rebuild-interval-ms:86400000}",
+            fixedDelayString = "${statistics.rollup.rebuild-interval-ms:86400000}")
+    public void scheduledRebuild() {
+        Map<String, Object> result = rebuild();
+        log.info("日汇总表定时重建完成: {}", result);
+    }
+
+    /**
+     * 启动时如果汇总表为空而原始表有数据（首次上线或被清空），自动回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        boolean attendanceMissing = attendanceDailyStatRepository.count() == 0 && attendanceRepository.count() > 0;
+        boolean gradeMissing = gradeDailyStatRepository.count() == 0 && gradeRepository.count() > 0;
+        if (attendanceMissing || gradeMissing) {
+            Map<String, Object> result = rebuild();
+            log.info("日汇总表为空，已从原始表回填: {}", result);
+        }
+    }
+
+    /**
+     * 全量重建日汇总表，删除与回填在同一事务内完成
+     */
+    public Map<String, Object> rebuild() {
+        return transactionTemplate.execute(status -> {
+            attendanceDailyStatRepository.deleteAllRows();
+            gradeDailyStatRepository.deleteAllRows();
+            int attendanceRows = attendanceDailyStatRepository.rebuildFromAttendance();
+            int gradeRows = gradeDailyStatRepository.rebuildFromGrades();
+            Map<String, Object> result = new HashMap<>();
+            result.put("attendance_rows", attendanceRows);
+            result.put("grade_rows", gradeRows);
+            return result;
+        });
+    }
+
+    private static long cents(BigDecimal score) {
+        return score.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private PendingDeltas pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingDeltas();
+        }
+        PendingDeltas deltas = (PendingDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            PendingDeltas created = new PendingDeltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    DailyRollupMaintainer.this.flush(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DailyRollupMaintainer.this);
+                }
+            });
+            deltas = created;
+        }
+        return deltas;
+    }
+
+    private void flushIfNoTransaction(PendingDeltas deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flush(deltas);
+        }
+    }
+
+    private void flush(PendingDeltas deltas) {
+        // 固定顺序写入，避免并发事务交叉加锁造成死锁
+        List<AttendanceKey> attendanceKeys = new ArrayList<>(deltas.attendance.keySet());
+        attendanceKeys.sort(ATTENDANCE_KEY_ORDER);
+        for (AttendanceKey key : attendanceKeys) {
+            long delta = deltas.attendance.get(key);
+            if (delta != 0 && !deltas.deletedClasses.contains(key.getClassId())) {
+                attendanceDailyStatRepository.addTotal(key.getStatDate(), key.getClassId(), key.getStatus().name(), delta);
+            }
+        }
+        List<GradeKey> gradeKeys = new ArrayList<>(deltas.grades.keySet());
+        gradeKeys.sort(GRADE_KEY_ORDER);
+        for (GradeKey key : gradeKeys) {
+            long[] totals = deltas.grades.get(key);
+            if ((totals[0] != 0 || totals[1] != 0 || totals[2] != 0) && !deltas.deletedClasses.contains(key.getClassId())) {
+                gradeDailyStatRepository.addTotals(key.getStatDate(), key.getClassId(),
+                        totals[0], totals[1], BigDecimal.valueOf(totals[2], 2));
+            }
+        }
+        // 已删除班级的汇总行整体删除，本事务内对这些班级的增量也不再写入
+        for (Integer classId : deltas.deletedClasses) {
+            attendanceDailyStatRepository.deleteByClassId(classId);
+            gradeDailyStatRepository.deleteByClassId(classId);
+        }
+        deltas.attendance.clear();
+        deltas.grades.clear();
+        deltas.deletedClasses.clear();
+    }
+
+    @Value
+    private static class AttendanceKey {
+        LocalDate statDate;
+        Integer classId;
+        Attendance.AttendanceStatus status;
+    }
+
+    @Value
+    private static class GradeKey {
+        LocalDate statDate;
+        Integer classId;
+    }
+
+    /**
+     * 当前事务内尚未写入的增量
+     */
+    private static class PendingDeltas {
+        private final Map<AttendanceKey, Long> attendance = new HashMap<>();
+        // [记录数, 有分数的记录数, 分数和(两位小数 * 100)]
+        private final Map<GradeKey, long[]> grades = new HashMap<>();
+        private final Set<Integer> deletedClasses = new TreeSet<>();
+
+        void addAttendance(Attendance a, int sign) {
+            if (a == null || a.getAttendanceDate() == null || a.getClassId() == null || a.getStatus() == null) {
+                return;
+            }
+            addAttendance(a.getAttendanceDate(), a.getClassId(), a.getStatus(), sign);
+        }
+
+        void addAttendance(LocalDate date, Integer classId, Attendance.AttendanceStatus status, long count) {
+            attendance.merge(new AttendanceKey(date, classId, status), count, Long::sum);
+        }
+
+        void addGrade(Grade g, int sign) {
+            // 没有考试日期的成绩不参与趋势统计
+            if (g == null || g.getExamDate() == null || g.getClassId() == null) {
+                return;
+            }
+            boolean scored = g.getScore() != null;
+            addGrade(g.getExamDate(), g.getClassId(), sign, scored ? sign : 0, scored ? sign * cents(g.getScore()) : 0);
+        }
+
+        void addGrade(LocalDate date, Integer classId, long total, long scoreCount, long scoreSumCents) {
+            long[] totals = grades.computeIfAbsent(new GradeKey(date, classId), k -> new long[3]);
+            totals[0] += total;
+            totals[1] += scoreCount;
+            totals[2] += scoreSumCents;
+        }
+    }
+}
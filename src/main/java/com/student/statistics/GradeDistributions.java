@@ -0,0 +1,293 @@
+package com.student.statistics;
+
+import com.student.dto.GradeScoreRow;
+import com.student.entity.Grade;
+import com.student.event.CascadeDeleteEvent;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.ClassCache;
+import com.student.repository.GradeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 成绩得分率分布
+ * <p>
+ * 按 (课程, 班级, 学期) 维护 {@link ScoreHistogram} 草图，写入提交后增量更新；
+ * 年级/部门/全校等更大范围的分位数通过合并草图得到，无需排序全部分数。
+ * 精确模式直接查询原始分数排序计算，仅用于小范围核对。
+ * 删除学生/班级时由外键级联删除的成绩按 {@link CascadeDeleteEvent} 处理。
+ */
+@Slf4j
+@Component
+public class GradeDistributions {
+    private static final Set<String> GROUP_BY = new HashSet<>(Arrays.asList("course", "class", "grade", "semester"));
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private ClassCache classCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${statistics.distribution.exact-max-rows:5000}")
+    private long exactMaxRows;
+
+    private volatile Map<SketchKey, ScoreHistogram> sketches = new ConcurrentHashMap<>();
+
+    /** 全量重建期间发生的增量更新，重建完成后在新草图上重放 */
+    private List<Consumer<Map<SketchKey, ScoreHistogram>>> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 从成绩表全量重建草图，定时执行以修正直接改库等造成的偏差；重建期间的写入在完成后补上
+     */
+    @Scheduled(initialDelayString = "${statistics.distribution.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${statistics.distribution.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        Map<SketchKey, ScoreHistogram> rebuilt = new ConcurrentHashMap<>();
+        boolean built = false;
+        try {
+            StatisticsSupport.streamRows(jdbcTemplate,
+                    "SELECT course_name, class_id, semester, score, full_score FROM grades WHERE score IS NOT NULL",
+                    rs -> rebuilt.computeIfAbsent(new SketchKey(rs.getString(1), rs.getInt(2), rs.getString(3)),
+                                    k -> new ScoreHistogram())
+                            .add(ScoreHistogram.slot(rs.getBigDecimal(4), rs.getBigDecimal(5)), 1));
+            built = true;
+        } finally {
+            synchronized (this) {
+                if (built) {
+                    pending.forEach(change -> change.accept(rebuilt));
+                    sketches = rebuilt;
+                }
+                pending = null;
+            }
+        }
+        log.info("成绩分布草图已重建：{} 组", rebuilt.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isAbout(Grade.class)) {
+            return;
+        }
+        Grade before = event.getBefore(Grade.class);
+        Grade after = event.getAfter(Grade.class);
+        apply(map -> {
+            add(map, before, -1);
+            add(map, after, 1);
+        });
+    }
+
+    /**
+     * 级联删除的成绩没有各自的事件：删除班级时移除该班级的草图，删除学生时按其成绩扣减
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCascadeDelete(CascadeDeleteEvent event) {
+        if (event.isAbout(com.student.entity.Class.class)) {
+            int classId = event.getParentId();
+            apply(map -> map.keySet().removeIf(key -> key.getClassId() == classId));
+        } else if (!event.getGrades().isEmpty()) {
+            List<Grade> removed = event.getGrades();
+            apply(map -> removed.forEach(g -> add(map, g, -1)));
+        }
+    }
+
+    /**
+     * 得分率分布
+     *
+     * @param groupBy     分组维度：course / class / grade / semester，为空时整体汇总
+     * @param exact       true 时查询原始分数精确计算
+     * @param bucketWidth 直方图每段的百分点宽度
+     */
+    public Map<String, Object> distribution(String courseName,
+                                            Integer classId,
+                                            String grade,
+                                            String department,
+                                            String semester,
+                                            String groupBy,
+                                            boolean exact,
+                                            int bucketWidth) {
+        if (groupBy != null && !GROUP_BY.contains(groupBy)) {
+            throw new IllegalArgumentException("不支持的分组维度: " + groupBy);
+        }
+        if (bucketWidth <= 0 || bucketWidth > 100) {
+            throw new IllegalArgumentException("直方图分段宽度应在 1~100 之间");
+        }
+        Map<Integer, ClassCache.ClassInfo> classMap = classCache.all();
+
+        // 合并满足筛选条件的草图，精确模式也先用草图得到行数
+        Map<Object, ScoreHistogram> merged = new TreeMap<>(Comparator.nullsFirst(Comparator.comparing(String::valueOf)));
+        for (Map.Entry<SketchKey, ScoreHistogram> e : sketches.entrySet()) {
+            SketchKey key = e.getKey();
+            ClassCache.ClassInfo clazz = classMap.get(key.getClassId());
+            if (courseName != null && !courseName.equals(key.getCourseName())) continue;
+            if (semester != null && !semester.equals(key.getSemester())) continue;
+            if (classId != null && !classId.equals(key.getClassId())) continue;
+            if (grade != null && (clazz == null || !grade.equals(clazz.getGrade()))) continue;
+            if (department != null && (clazz == null || !department.equals(clazz.getDepartment()))) continue;
+            Object group = groupValue(groupBy, key.getCourseName(), key.getClassId(), key.getSemester(),
+                    clazz != null ? clazz.getGrade() : null);
+            e.getValue().mergeInto(merged.computeIfAbsent(group, k -> new ScoreHistogram()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", exact ? "exact" : "sketch");
+        List<Map<String, Object>> groups = new ArrayList<>();
+        if (exact) {
+            long rows = merged.values().stream().mapToLong(ScoreHistogram::count).sum();
+            if (rows > exactMaxRows) {
+                throw new IllegalArgumentException("精确模式最多支持 " + exactMaxRows + " 条成绩，当前 " + rows + " 条，请缩小范围");
+            }
+            Map<Object, List<BigDecimal>> scores = new TreeMap<>(Comparator.nullsFirst(Comparator.comparing(String::valueOf)));
+            for (GradeScoreRow row : gradeRepository.findScores(courseName, semester, grade, department, classId)) {
+                Object group = groupValue(groupBy, row.getCourseName(), row.getClassId(), row.getSemester(), row.getGrade());
+                scores.computeIfAbsent(group, k -> new ArrayList<>()).add(percent(row.getScore(), row.getFullScore()));
+            }
+            for (Map.Entry<Object, List<BigDecimal>> e : scores.entrySet()) {
+                groups.add(withGroup(groupBy, e.getKey(), summarizeExact(e.getValue(), bucketWidth)));
+            }
+        } else {
+            for (Map.Entry<Object, ScoreHistogram> e : merged.entrySet()) {
+                if (e.getValue().count() <= 0) continue;
+                groups.add(withGroup(groupBy, e.getKey(), e.getValue().summarize(bucketWidth)));
+            }
+        }
+
+        if (groupBy == null) {
+            result.putAll(groups.isEmpty() ? Collections.singletonMap("count", 0L) : groups.get(0));
+        } else {
+            result.put("group_by", groupBy);
+            result.put("groups", groups);
+        }
+        return result;
+    }
+
+    /**
+     * 对给定的一组成绩精确计算得分率分布，口径与 distribution 的精确模式相同
+     */
+    public static Map<String, Object> summarize(Collection<Grade> grades, int bucketWidth) {
+        List<BigDecimal> values = new ArrayList<>();
+        for (Grade g : grades) {
+            if (g.getScore() != null) {
+                values.add(percent(g.getScore(), g.getFullScore()));
+            }
+        }
+        return values.isEmpty() ? Collections.singletonMap("count", 0L) : summarizeExact(values, bucketWidth);
+    }
+
+    private synchronized void apply(Consumer<Map<SketchKey, ScoreHistogram>> change) {
+        change.accept(sketches);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    private static void add(Map<SketchKey, ScoreHistogram> map, Grade g, int sign) {
+        if (g == null || g.getScore() == null) {
+            return;
+        }
+        ScoreHistogram sketch = map.computeIfAbsent(
+                new SketchKey(g.getCourseName(), g.getClassId() != null ? g.getClassId() : 0, g.getSemester()),
+                k -> new ScoreHistogram());
+        sketch.add(ScoreHistogram.slot(g.getScore(), g.getFullScore()), sign);
+    }
+
+    private static Object groupValue(String groupBy, String courseName, Integer classId, String semester, String grade) {
+        if (groupBy == null) return "all";
+        switch (groupBy) {
+            case "course":
+                return courseName;
+            case "class":
+                return classId;
+            case "grade":
+                return grade;
+            default:
+                return semester;
+        }
+    }
+
+    private static Map<String, Object> withGroup(String groupBy, Object group, Map<String, Object> summary) {
+        if (groupBy == null) {
+            return summary;
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put(groupBy, group);
+        m.putAll(summary);
+        return m;
+    }
+
+    private static BigDecimal percent(BigDecimal score, BigDecimal fullScore) {
+        BigDecimal full = fullScore != null && fullScore.signum() > 0 ? fullScore : BigDecimal.valueOf(100);
+        // 与草图同样向下取整，保证两种模式按分段计数一致
+        BigDecimal pct = score.multiply(BigDecimal.valueOf(100)).divide(full, 2, RoundingMode.DOWN);
+        return pct.max(BigDecimal.ZERO).min(BigDecimal.valueOf(100));
+    }
+
+    /**
+     * 精确分布，分位数与直方图口径与草图一致（最近秩，向下取整，超出 0~100% 的截断到两端）
+     */
+    private static Map<String, Object> summarizeExact(List<BigDecimal> values, int bucketWidth) {
+        Collections.sort(values);
+        int n = values.size();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", (long) n);
+        m.put("min", values.get(0));
+        m.put("p10", values.get(rank(0.1, n) - 1));
+        m.put("median", values.get(rank(0.5, n) - 1));
+        m.put("p90", values.get(rank(0.9, n) - 1));
+        m.put("max", values.get(n - 1));
+
+        int buckets = (100 + bucketWidth - 1) / bucketWidth;
+        long[] bucketCounts = new long[buckets];
+        for (BigDecimal v : values) {
+            bucketCounts[Math.min(v.intValue() / bucketWidth, buckets - 1)]++;
+        }
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("from", b * bucketWidth);
+            bucket.put("to", Math.min(100, (b + 1) * bucketWidth));
+            bucket.put("count", bucketCounts[b]);
+            histogram.add(bucket);
+        }
+        m.put("histogram", histogram);
+        return m;
+    }
+
+    private static int rank(double q, int n) {
+        return Math.max(1, (int) Math.ceil(q * n));
+    }
+
+    @lombok.Value
+    private static class SketchKey {
+        String courseName;
+        int classId;
+        String semester;
+    }
+}
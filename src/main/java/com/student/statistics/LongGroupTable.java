@@ -0,0 +1,80 @@
+package com.student.statistics;
+
+/**
+ * 以 long 组合键分组累加的开放寻址哈希表，每组固定 3 个 long 累加值，扫描过程中不装箱
+ */
+final class LongGroupTable {
+    private static final int WIDTH = 3;
+
+    private long[] keys;
+    private boolean[] used;
+    private long[] values;
+    private int size;
+
+    LongGroupTable() {
+        keys = new long[64];
+        used = new boolean[64];
+        values = new long[64 * WIDTH];
+    }
+
+    void add(long key, long v0, long v1, long v2) {
+        if (size * 2 >= keys.length) {
+            resize();
+        }
+        int i = indexOf(key);
+        if (!used[i]) {
+            used[i] = true;
+            keys[i] = key;
+            size++;
+        }
+        values[i * WIDTH] += v0;
+        values[i * WIDTH + 1] += v1;
+        values[i * WIDTH + 2] += v2;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    long value(int slot, int column) {
+        return values[slot * WIDTH + column];
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2 * WIDTH];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (!oldUsed[j]) continue;
+            int i = indexOf(oldKeys[j]);
+            used[i] = true;
+            keys[i] = oldKeys[j];
+            System.arraycopy(oldValues, j * WIDTH, values, i * WIDTH, WIDTH);
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
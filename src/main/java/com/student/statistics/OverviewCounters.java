@@ -0,0 +1,221 @@
+package com.student.statistics;
+
+import com.student.dto.AttendanceStatusCount;
+import com.student.dto.ScoreSummary;
+import com.student.dto.TodoCountRow;
+import com.student.entity.Attendance;
+import com.student.entity.Grade;
+import com.student.entity.Student;
+import com.student.entity.Todo;
+import com.student.event.CascadeDeleteEvent;
+import com.student.event.EntityChangeEvent;
+import com.student.event.ResourceVersions;
+import com.student.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 综合概览计数器
+ * <p>
+ * 各 Service 写入提交后按增量维护待办/考勤状态计数、成绩分数和与记录数，
+ * 概览接口直接读取内存值。定时对账任务从数据库重新统计并覆盖，
+ * 用于修正进程崩溃、直接改库或对账期间并发写入造成的偏差。
+ * 删除学生/班级时由外键级联删除的考勤、成绩按 {@link CascadeDeleteEvent} 扣减。
+ */
+@Slf4j
+@Component
+public class OverviewCounters {
+    private static final Todo.TodoStatus[] TODO_STATUSES = Todo.TodoStatus.values();
+    private static final Attendance.AttendanceStatus[] ATTENDANCE_STATUSES = Attendance.AttendanceStatus.values();
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ClassRepository classRepository;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    // 最后一格存放状态为空的记录
+    private final AtomicLongArray todoByStatus = new AtomicLongArray(TODO_STATUSES.length + 1);
+    private final AtomicLongArray attendanceByStatus = new AtomicLongArray(ATTENDANCE_STATUSES.length + 1);
+    private final AtomicLong students = new AtomicLong();
+    private final AtomicLong classes = new AtomicLong();
+    private final AtomicLong grades = new AtomicLong();
+    private final AtomicLong scoreCount = new AtomicLong();
+    // 分数以“分”为单位（两位小数 * 100）累加，避免 BigDecimal 竞争
+    private final AtomicLong scoreSumHundredths = new AtomicLong();
+
+    private volatile boolean ready;
+
+    /**
+     * 综合概览，结构与原先逐表扫描的结果一致
+     */
+    public Map<String, Object> snapshot() {
+        if (!ready) {
+            reconcile();
+        }
+        Map<String, Object> overview = new HashMap<>();
+
+        List<Map<String, Object>> todoStats = new ArrayList<>();
+        for (int i = 0; i <= TODO_STATUSES.length; i++) {
+            long total = todoByStatus.get(i);
+            if (total <= 0) continue;
+            Map<String, Object> m = new HashMap<>();
+            m.put("status", i < TODO_STATUSES.length ? TODO_STATUSES[i].name() : "未知");
+            m.put("total", total);
+            todoStats.add(m);
+        }
+
+        long attendanceTotal = 0;
+        for (int i = 0; i < attendanceByStatus.length(); i++) {
+            attendanceTotal += attendanceByStatus.get(i);
+        }
+        Map<String, Object> attendanceStats = new HashMap<>();
+        attendanceStats.put("total", attendanceTotal);
+        attendanceStats.put("attendance_count", attendanceByStatus.get(Attendance.AttendanceStatus.出勤.ordinal()));
+        attendanceStats.put("absence_count", attendanceByStatus.get(Attendance.AttendanceStatus.缺勤.ordinal()));
+
+        BigDecimal avgScore = BigDecimal.ZERO;
+        long cnt = scoreCount.get();
+        if (cnt > 0) {
+            avgScore = BigDecimal.valueOf(scoreSumHundredths.get(), 2)
+                    .divide(BigDecimal.valueOf(cnt), 2, RoundingMode.HALF_UP);
+        }
+        Map<String, Object> gradeStats = new HashMap<>();
+        gradeStats.put("total", grades.get());
+        gradeStats.put("avg_score", avgScore);
+
+        overview.put("students", students.get());
+        overview.put("classes", classes.get());
+        overview.put("todos", todoStats);
+        overview.put("attendance", attendanceStats);
+        overview.put("grades", gradeStats);
+        return overview;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isAbout(Todo.class)) {
+            Todo before = event.getBefore(Todo.class);
+            Todo after = event.getAfter(Todo.class);
+            if (before != null) todoByStatus.decrementAndGet(slot(before.getStatus(), TODO_STATUSES.length));
+            if (after != null) todoByStatus.incrementAndGet(slot(after.getStatus(), TODO_STATUSES.length));
+        } else if (event.isAbout(Attendance.class)) {
+            Attendance before = event.getBefore(Attendance.class);
+            Attendance after = event.getAfter(Attendance.class);
+            if (before != null) attendanceByStatus.decrementAndGet(slot(before.getStatus(), ATTENDANCE_STATUSES.length));
+            if (after != null) attendanceByStatus.incrementAndGet(slot(after.getStatus(), ATTENDANCE_STATUSES.length));
+        } else if (event.isAbout(Grade.class)) {
+            Grade before = event.getBefore(Grade.class);
+            Grade after = event.getAfter(Grade.class);
+            if (before != null) applyGrade(before, -1);
+            if (after != null) applyGrade(after, 1);
+        } else if (event.isAbout(Student.class)) {
+            if (event.isCreate()) students.incrementAndGet();
+            if (event.isDelete()) students.decrementAndGet();
+        } else if (event.isAbout(com.student.entity.Class.class)) {
+            if (event.isCreate()) classes.incrementAndGet();
+            if (event.isDelete()) classes.decrementAndGet();
+        }
+    }
+
+    /**
+     * 级联删除的考勤、成绩没有各自的事件，提交后按 {@link CascadeDeleteEvent} 扣减
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCascadeDelete(CascadeDeleteEvent event) {
+        for (Attendance a : event.getAttendance()) {
+            attendanceByStatus.decrementAndGet(slot(a.getStatus(), ATTENDANCE_STATUSES.length));
+        }
+        for (Grade g : event.getGrades()) {
+            applyGrade(g, -1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 定时对账：以数据库为准重新统计，并记录发现的偏差
+     */
+    @Scheduled(initialDelayString = "${statistics.overview.reconcile-interval-ms:600000}",
+            fixedDelayString = "${statistics.overview.reconcile-interval-ms:600000}")
+    public synchronized void reconcile() {
+        long[] todoCounts = new long[TODO_STATUSES.length + 1];
+        for (TodoCountRow row : todoRepository.countByStatusPriority(null, null, null)) {
+            todoCounts[slot(row.getStatus(), TODO_STATUSES.length)] += row.getTotal();
+        }
+        long[] attendanceCounts = new long[ATTENDANCE_STATUSES.length + 1];
+        for (AttendanceStatusCount row : attendanceRepository.countGroupByStatus()) {
+            attendanceCounts[slot(row.getStatus(), ATTENDANCE_STATUSES.length)] += row.getTotal();
+        }
+        ScoreSummary summary = gradeRepository.summarizeScores();
+        long studentTotal = studentRepository.count();
+        long classTotal = classRepository.count();
+
+        long drift = 0;
+        for (int i = 0; i < todoCounts.length; i++) {
+            drift += Math.abs(todoByStatus.getAndSet(i, todoCounts[i]) - todoCounts[i]);
+        }
+        for (int i = 0; i < attendanceCounts.length; i++) {
+            drift += Math.abs(attendanceByStatus.getAndSet(i, attendanceCounts[i]) - attendanceCounts[i]);
+        }
+        long gradeTotal = summary != null && summary.getTotal() != null ? summary.getTotal() : 0;
+        long gradeScoreCount = summary != null && summary.getScoreCount() != null ? summary.getScoreCount() : 0;
+        long gradeScoreSum = summary != null && summary.getScoreSum() != null ? toHundredths(summary.getScoreSum()) : 0;
+        drift += Math.abs(grades.getAndSet(gradeTotal) - gradeTotal);
+        drift += Math.abs(scoreCount.getAndSet(gradeScoreCount) - gradeScoreCount);
+        drift += Math.abs(students.getAndSet(studentTotal) - studentTotal);
+        drift += Math.abs(classes.getAndSet(classTotal) - classTotal);
+        scoreSumHundredths.set(gradeScoreSum);
+
+        if (drift > 0) {
+            resourceVersions.touch(OverviewCounters.class);
+        }
+        if (ready && drift > 0) {
+            log.warn("概览计数器对账发现偏差，已按数据库修正，偏差合计: {}", drift);
+        }
+        ready = true;
+    }
+
+    private void applyGrade(Grade grade, int sign) {
+        grades.addAndGet(sign);
+        if (grade.getScore() != null) {
+            scoreCount.addAndGet(sign);
+            scoreSumHundredths.addAndGet(sign * toHundredths(grade.getScore()));
+        }
+    }
+
+    private static int slot(Enum<?> status, int unknownSlot) {
+        return status != null ? status.ordinal() : unknownSlot;
+    }
+
+    private static long toHundredths(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+}
@@ -0,0 +1,97 @@
+package com.student.statistics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 得分率（score / fullScore，百分比）的定宽直方图草图
+ * <p>
+ * 0~100% 按 0.1% 分成 1001 格，得分率向下取整到格，分位数比精确值小不超过 0.1 个百分点，
+ * 直方图分段与精确模式一致（如 59.96% 在两种模式下都计入 50~60 段）。
+ * 两个草图逐格相加即可合并，合并结果与直接用全部分数构建的草图完全一致，且支持删除。
+ */
+final class ScoreHistogram {
+    static final int SLOTS = 1001;
+
+    private final long[] counts = new long[SLOTS];
+    private long count;
+
+    /**
+     * 得分率所在格（向下取整）；满分为空或不大于 0 时按 100 分计，超出 0~100% 的截断到两端
+     */
+    static int slot(BigDecimal score, BigDecimal fullScore) {
+        BigDecimal full = fullScore != null && fullScore.signum() > 0 ? fullScore : BigDecimal.valueOf(100);
+        int slot = score.multiply(BigDecimal.valueOf(1000)).divide(full, 0, RoundingMode.DOWN).intValue();
+        return Math.max(0, Math.min(SLOTS - 1, slot));
+    }
+
+    synchronized void add(int slot, int sign) {
+        counts[slot] += sign;
+        count += sign;
+    }
+
+    synchronized void mergeInto(ScoreHistogram target) {
+        for (int i = 0; i < SLOTS; i++) {
+            target.counts[i] += counts[i];
+        }
+        target.count += count;
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    /**
+     * 分布摘要：数量、最小/最大值、p10/中位数/p90（最近秩），以及按 bucketWidth 个百分点分段的直方图
+     */
+    Map<String, Object> summarize(int bucketWidth) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", count);
+        if (count <= 0) {
+            return m;
+        }
+        m.put("min", percent(valueAtRank(1)));
+        m.put("p10", percent(valueAtRank(rank(0.1))));
+        m.put("median", percent(valueAtRank(rank(0.5))));
+        m.put("p90", percent(valueAtRank(rank(0.9))));
+        m.put("max", percent(valueAtRank(count)));
+
+        int slotsPerBucket = bucketWidth * 10;
+        int buckets = (100 + bucketWidth - 1) / bucketWidth;
+        long[] bucketCounts = new long[buckets];
+        for (int i = 0; i < SLOTS; i++) {
+            bucketCounts[Math.min(i / slotsPerBucket, buckets - 1)] += counts[i];
+        }
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            Map<String, Object> bucket = new LinkedHashMap<>();
+            bucket.put("from", b * bucketWidth);
+            bucket.put("to", Math.min(100, (b + 1) * bucketWidth));
+            bucket.put("count", bucketCounts[b]);
+            histogram.add(bucket);
+        }
+        m.put("histogram", histogram);
+        return m;
+    }
+
+    private long rank(double q) {
+        return Math.max(1, (long) Math.ceil(q * count));
+    }
+
+    private int valueAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return i;
+        }
+        return SLOTS - 1;
+    }
+
+    private static BigDecimal percent(int slot) {
+        return BigDecimal.valueOf(slot, 1);
+    }
+}
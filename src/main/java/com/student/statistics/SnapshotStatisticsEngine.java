@@ -0,0 +1,229 @@
+package com.student.statistics;
+
+import com.student.entity.Attendance;
+import com.student.repository.ClassCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+import static com.student.statistics.StatisticsSupport.*;
+
+/**
+ * 基于内存列式快照的统计引擎（statistics.engine=snapshot 时启用）
+ * <p>
+ * 快照按 statistics.snapshot.refresh-interval-ms 定期从数据库流式重建并整体替换，
+ * 查询期间只读当前快照，结果最多滞后一个刷新周期。
+ * 统计结果缓存在写入时失效，但那时快照还是旧的；刷新完成后再次失效考勤/成绩的缓存结果，
+ * 避免把写入前的数字再缓存一个 ttl。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "statistics.engine", havingValue = "snapshot")
+public class SnapshotStatisticsEngine implements StatisticsEngine {
+
+    @Autowired
+    private ClassCache classCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatisticsResultCache resultCache;
+
+    private volatile ColumnarSnapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${statistics.snapshot.refresh-interval-ms:60000}",
+            fixedDelayString = "${statistics.snapshot.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        long begin = System.currentTimeMillis();
+        ColumnarSnapshot.Builder builder = new ColumnarSnapshot.Builder();
+        classCache.all().values().forEach(c -> builder.addClass(c.getId(), c.getGrade(), c.getDepartment()));
+        streamRows(jdbcTemplate, "SELECT attendance_date, status, class_id, course_name FROM attendance",
+                rs -> builder.addAttendance(toLocalDate(rs.getDate(1)), rs.getString(2), rs.getInt(3), rs.getString(4)));
+        streamRows(jdbcTemplate, "SELECT exam_date, class_id, score, course_name, semester, academic_year FROM grades",
+                rs -> builder.addGrade(toLocalDate(rs.getDate(1)), rs.getInt(2), rs.getBigDecimal(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6)));
+        ColumnarSnapshot loaded = builder.build();
+        snapshot = loaded;
+        resultCache.invalidate("attendance");
+        resultCache.invalidate("grades");
+        log.info("统计快照已刷新：考勤 {} 行，成绩 {} 行，耗时 {} ms",
+                loaded.attendanceSize(), loaded.gradeSize(), System.currentTimeMillis() - begin);
+    }
+
+    @Override
+    public List<Map<String, Object>> countAttendance(StatisticsFilter filter) {
+        Attendance.AttendanceStatus statusValue = parseEnum(Attendance.AttendanceStatus.class, filter.getStatus());
+        if (filter.getStatus() != null && statusValue == null) {
+            return Collections.emptyList();
+        }
+        ColumnarSnapshot s = current();
+        long[] counts = s.countAttendanceByGroupStatus(fromDay(filter), toDay(filter),
+                statusValue != null ? statusValue.ordinal() : -1,
+                s.classMask(filter.getGrade(), filter.getDepartment(), filter.getClassId()));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int g = 0; g < s.groupCount(); g++) {
+            for (int st = 0; st < ColumnarSnapshot.STATUS_SLOTS; st++) {
+                long count = counts[g * ColumnarSnapshot.STATUS_SLOTS + st];
+                if (count == 0) continue;
+                Map<String, Object> m = new HashMap<>();
+                m.put("count", count);
+                m.put("status", ColumnarSnapshot.statusName(st));
+                m.put("grade", orUnknown(s.groupGrade(g)));
+                m.put("department", orUnknown(s.groupDepartment(g)));
+                result.add(m);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> countGrades(StatisticsFilter filter) {
+        ColumnarSnapshot s = current();
+        long[] totals = s.sumGradesByGroup(fromDay(filter), toDay(filter),
+                s.classMask(filter.getGrade(), filter.getDepartment(), filter.getClassId()));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int g = 0; g < s.groupCount(); g++) {
+            long count = totals[g * 3];
+            if (count == 0) continue;
+            Map<String, Object> m = new HashMap<>();
+            m.put("count", count);
+            m.put("grade", orUnknown(s.groupGrade(g)));
+            m.put("department", orUnknown(s.groupDepartment(g)));
+            m.put("avg_score", avgScore(totals[g * 3 + 2], totals[g * 3 + 1]));
+            result.add(m);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> trendAttendance(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        if (to < from) return Collections.emptyList();
+        // 与 SQL 引擎一致，只统计仍存在的班级
+        ColumnarSnapshot s = current();
+        long[] daily = s.attendanceByDay(from, to, s.classMask(null, null, null));
+
+        Map<String, long[]> buckets = new TreeMap<>();
+        for (int i = 0; i <= to - from; i++) {
+            if (daily[i * 3] == 0) continue;
+            long[] totals = buckets.computeIfAbsent(LocalDate.ofEpochDay(from + i).format(formatter), k -> new long[3]);
+            totals[0] += daily[i * 3];
+            totals[1] += daily[i * 3 + 1];
+            totals[2] += daily[i * 3 + 2];
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : buckets.entrySet()) {
+            result.add(attendanceTrendRow(e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Map<String, Object>> trendGrades(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter) {
+        int from = (int) startDate.toEpochDay();
+        int to = (int) endDate.toEpochDay();
+        if (to < from) return Collections.emptyList();
+        ColumnarSnapshot s = current();
+        long[] daily = s.gradesByDay(from, to, s.classMask(null, null, null));
+
+        Map<String, long[]> buckets = new TreeMap<>();
+        for (int i = 0; i <= to - from; i++) {
+            if (daily[i * 3] == 0) continue;
+            long[] totals = buckets.computeIfAbsent(LocalDate.ofEpochDay(from + i).format(formatter), k -> new long[3]);
+            totals[0] += daily[i * 3];
+            totals[1] += daily[i * 3 + 1];
+            totals[2] += daily[i * 3 + 2];
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : buckets.entrySet()) {
+            result.add(gradeTrendRow(e.getKey(), e.getValue()[0], avgScore(e.getValue()[2], e.getValue()[1])));
+        }
+        return result;
+    }
+
+    @Override
+    public long[] attendanceByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods) {
+        ColumnarSnapshot s = current();
+        return s.attendanceByPeriod(fromDays(periods), toDays(periods),
+                s.classMask(filter.getGrade(), filter.getDepartment(), filter.getClassId()));
+    }
+
+    @Override
+    public long[] gradesByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods) {
+        ColumnarSnapshot s = current();
+        return s.gradesByPeriod(fromDays(periods), toDays(periods),
+                s.classMask(filter.getGrade(), filter.getDepartment(), filter.getClassId()));
+    }
+
+    @Override
+    public List<Map<String, Object>> cube(CubeQuery query) {
+        StatisticsFilter filter = query.getFilter();
+        int status = -1;
+        if (query.isAttendance() && filter.getStatus() != null) {
+            Attendance.AttendanceStatus statusValue = parseEnum(Attendance.AttendanceStatus.class, filter.getStatus());
+            if (statusValue == null) {
+                return Collections.emptyList();
+            }
+            status = statusValue.ordinal();
+        }
+        ColumnarSnapshot s = current();
+        return s.cube(query, s.classMask(filter.getGrade(), filter.getDepartment(), filter.getClassId()),
+                fromDay(filter), toDay(filter), status);
+    }
+
+    private ColumnarSnapshot current() {
+        ColumnarSnapshot s = snapshot;
+        if (s == null) {
+            refresh();
+            s = snapshot;
+        }
+        return s;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static int fromDay(StatisticsFilter filter) {
+        return ColumnarSnapshot.toDay(filter.getStartDate(), ColumnarSnapshot.MIN_DAY);
+    }
+
+    private static int toDay(StatisticsFilter filter) {
+        return ColumnarSnapshot.toDay(filter.getEndDate(), ColumnarSnapshot.MAX_DAY);
+    }
+
+    private static int[] fromDays(List<StatisticsPeriod> periods) {
+        int[] days = new int[periods.size()];
+        for (int p = 0; p < days.length; p++) {
+            days[p] = ColumnarSnapshot.toDay(periods.get(p).getStart(), ColumnarSnapshot.MIN_DAY);
+        }
+        return days;
+    }
+
+    private static int[] toDays(List<StatisticsPeriod> periods) {
+        int[] days = new int[periods.size()];
+        for (int p = 0; p < days.length; p++) {
+            days[p] = ColumnarSnapshot.toDay(periods.get(p).getEnd(), ColumnarSnapshot.MAX_DAY);
+        }
+        return days;
+    }
+}
@@ -0,0 +1,270 @@
+package com.student.statistics;
+
+import com.student.dto.DailyScoreSummary;
+import com.student.dto.DailyStatusCount;
+import com.student.entity.Attendance;
+import com.student.repository.AttendanceDailyStatRepository;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.GradeDailyStatRepository;
+import com.student.repository.GradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.student.statistics.StatisticsSupport.*;
+
+/**
+ * 基于数据库的统计引擎：数量/对比走分组查询，趋势读取日汇总表
+ */
+@Component
+@ConditionalOnProperty(name = "statistics.engine", havingValue = "sql", matchIfMissing = true)
+public class SqlStatisticsEngine implements StatisticsEngine {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private AttendanceDailyStatRepository attendanceDailyStatRepository;
+
+    @Autowired
+    private GradeDailyStatRepository gradeDailyStatRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Map<String, Object>> countAttendance(StatisticsFilter filter) {
+        Attendance.AttendanceStatus statusValue = parseEnum(Attendance.AttendanceStatus.class, filter.getStatus());
+        if (filter.getStatus() != null && statusValue == null) {
+            return Collections.emptyList();
+        }
+
+        return attendanceRepository.countByStatusGradeDepartment(filter.getStartDate(), filter.getEndDate(), statusValue,
+                        filter.getGrade(), filter.getDepartment(), filter.getClassId())
+                .stream()
+                .map(row -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("count", row.getTotal());
+                    m.put("status", row.getStatus() != null ? row.getStatus().name() : "未知");
+                    m.put("grade", orUnknown(row.getGrade()));
+                    m.put("department", orUnknown(row.getDepartment()));
+                    return m;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Map<String, Object>> countGrades(StatisticsFilter filter) {
+        // 按年级+部门分组，并统计数量和平均分
+        return gradeRepository.countByGradeDepartment(filter.getStartDate(), filter.getEndDate(),
+                        filter.getGrade(), filter.getDepartment(), filter.getClassId())
+                .stream()
+                .map(row -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("count", row.getTotal());
+                    m.put("grade", orUnknown(row.getGrade()));
+                    m.put("department", orUnknown(row.getDepartment()));
+                    m.put("avg_score", avgScore(row.getScoreSum(), row.getScoreCount()));
+                    return m;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 考勤趋势：读取日汇总表（天 × 状态），再按周/月/年归并
+     */
+    @Override
+    public List<Map<String, Object>> trendAttendance(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter) {
+        // [总数, 出勤数, 缺勤数]
+        Map<String, long[]> buckets = new TreeMap<>();
+        for (DailyStatusCount row : attendanceDailyStatRepository.sumByDateAndStatus(startDate, endDate)) {
+            long[] totals = buckets.computeIfAbsent(row.getStatDate().format(formatter), k -> new long[3]);
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            totals[0] += total;
+            if (row.getStatus() == Attendance.AttendanceStatus.出勤) totals[1] += total;
+            if (row.getStatus() == Attendance.AttendanceStatus.缺勤) totals[2] += total;
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : buckets.entrySet()) {
+            if (e.getValue()[0] == 0) continue;
+            result.add(attendanceTrendRow(e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]));
+        }
+        return result;
+    }
+
+    /**
+     * 成绩趋势：读取日汇总表（考试日期），再按周/月/年归并
+     */
+    @Override
+    public List<Map<String, Object>> trendGrades(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter) {
+        Map<String, long[]> counts = new TreeMap<>();
+        Map<String, BigDecimal> sums = new HashMap<>();
+        for (DailyScoreSummary row : gradeDailyStatRepository.sumByDate(startDate, endDate)) {
+            String key = row.getStatDate().format(formatter);
+            long[] totals = counts.computeIfAbsent(key, k -> new long[2]);
+            totals[0] += row.getTotal() != null ? row.getTotal() : 0;
+            totals[1] += row.getScoreCount() != null ? row.getScoreCount() : 0;
+            if (row.getScoreSum() != null) {
+                sums.merge(key, row.getScoreSum(), BigDecimal::add);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : counts.entrySet()) {
+            if (e.getValue()[0] == 0) continue;
+            result.add(gradeTrendRow(e.getKey(), e.getValue()[0], avgScore(sums.get(e.getKey()), e.getValue()[1])));
+        }
+        return result;
+    }
+
+    /**
+     * 按天读取筛选后的日汇总（覆盖所有区间的最小范围），每天的汇总计入所有包含它的区间
+     */
+    @Override
+    public long[] attendanceByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods) {
+        long[] totals = new long[periods.size() * 2];
+        for (DailyStatusCount row : attendanceDailyStatRepository.sumByDateAndStatusForClasses(
+                StatisticsPeriod.earliestStart(periods), StatisticsPeriod.latestEnd(periods),
+                filter.getGrade(), filter.getDepartment(), filter.getClassId())) {
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            boolean present = row.getStatus() == Attendance.AttendanceStatus.出勤;
+            for (int p = 0; p < periods.size(); p++) {
+                if (!periods.get(p).contains(row.getStatDate())) continue;
+                totals[p * 2] += total;
+                if (present) totals[p * 2 + 1] += total;
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public long[] gradesByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods) {
+        long[] totals = new long[periods.size() * 3];
+        for (DailyScoreSummary row : gradeDailyStatRepository.sumByDateForClasses(
+                StatisticsPeriod.earliestStart(periods), StatisticsPeriod.latestEnd(periods),
+                filter.getGrade(), filter.getDepartment(), filter.getClassId())) {
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            long scoreCount = row.getScoreCount() != null ? row.getScoreCount() : 0;
+            long scoreSum = row.getScoreSum() != null ? toHundredths(row.getScoreSum()) : 0;
+            for (int p = 0; p < periods.size(); p++) {
+                if (!periods.get(p).contains(row.getStatDate())) continue;
+                totals[p * 3] += total;
+                totals[p * 3 + 1] += scoreCount;
+                totals[p * 3 + 2] += scoreSum;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * 白名单维度拼成一条分组 SQL，筛选值全部走参数绑定
+     */
+    @Override
+    public List<Map<String, Object>> cube(CubeQuery query) {
+        StatisticsFilter filter = query.getFilter();
+        boolean attendance = query.isAttendance();
+        String alias = attendance ? "a" : "g";
+        String dateColumn = attendance ? "a.attendance_date" : "g.exam_date";
+
+        List<String> select = new ArrayList<>();
+        List<String> groupBy = new ArrayList<>();
+        for (int i = 0; i < query.getDimensions().size(); i++) {
+            select.add(dimensionExpression(query, query.getDimensions().get(i), alias, dateColumn) + " AS d" + i);
+            groupBy.add("d" + i);
+        }
+        if (attendance) {
+            select.add("COUNT(*) AS total");
+            select.add("SUM(CASE WHEN a.status = '出勤' THEN 1 ELSE 0 END) AS part");
+            select.add("0 AS score_sum");
+        } else {
+            select.add("COUNT(*) AS total");
+            select.add("COUNT(g.score) AS part");
+            select.add("COALESCE(SUM(g.score), 0) AS score_sum");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", select))
+                .append(attendance ? " FROM attendance a" : " FROM grades g")
+                .append(" JOIN classes c ON c.id = ").append(alias).append(".class_id WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.getStartDate() != null) {
+            sql.append(" AND ").append(dateColumn).append(" >= ?");
+            args.add(filter.getStartDate());
+        }
+        if (filter.getEndDate() != null) {
+            sql.append(" AND ").append(dateColumn).append(" <= ?");
+            args.add(filter.getEndDate());
+        }
+        if (filter.getGrade() != null) {
+            sql.append(" AND c.grade = ?");
+            args.add(filter.getGrade());
+        }
+        if (filter.getDepartment() != null) {
+            sql.append(" AND c.department = ?");
+            args.add(filter.getDepartment());
+        }
+        if (filter.getClassId() != null) {
+            sql.append(" AND c.id = ?");
+            args.add(filter.getClassId());
+        }
+        if (attendance && filter.getStatus() != null) {
+            sql.append(" AND a.status = ?");
+            args.add(filter.getStatus());
+        }
+        if (!groupBy.isEmpty()) {
+            sql.append(" GROUP BY ").append(String.join(", ", groupBy));
+        }
+
+        int dims = query.getDimensions().size();
+        List<Map<String, Object>> result = new ArrayList<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            long total = rs.getLong("total");
+            if (total == 0) return;
+            Object[] values = new Object[dims];
+            for (int i = 0; i < dims; i++) {
+                if (CubeQuery.CLASS.equals(query.getDimensions().get(i))) {
+                    values[i] = rs.getObject("d" + i) != null ? rs.getInt("d" + i) : null;
+                } else {
+                    values[i] = orUnknown(rs.getString("d" + i));
+                }
+            }
+            BigDecimal scoreSum = rs.getBigDecimal("score_sum");
+            result.add(query.row(values, total, rs.getLong("part"), scoreSum != null ? toHundredths(scoreSum) : 0));
+        }, args.toArray());
+        query.sort(result);
+        return result;
+    }
+
+    private static String dimensionExpression(CubeQuery query, String dimension, String alias, String dateColumn) {
+        switch (dimension) {
+            case CubeQuery.CLASS:
+                return "c.id";
+            case CubeQuery.GRADE:
+                return "c.grade";
+            case CubeQuery.DEPARTMENT:
+                return "c.department";
+            case CubeQuery.COURSE:
+                return alias + ".course_name";
+            case CubeQuery.SEMESTER:
+                return "g.semester";
+            case CubeQuery.ACADEMIC_YEAR:
+                return "g.academic_year";
+            case CubeQuery.STATUS:
+                return "a.status";
+            case CubeQuery.TIME:
+                return "DATE_FORMAT(" + dateColumn + ", '" + query.sqlTimeFormat() + "')";
+            default:
+                throw new IllegalArgumentException("不支持的维度: " + dimension);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.student.statistics;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 考勤/成绩统计引擎，由配置 statistics.engine 选择实现：
+ * sql（分组查询 + 日汇总表）或 snapshot（内存列式快照）
+ */
+public interface StatisticsEngine {
+
+    /**
+     * 考勤数量统计，按 状态 + 年级 + 部门 分组
+     */
+    List<Map<String, Object>> countAttendance(StatisticsFilter filter);
+
+    /**
+     * 成绩数量统计，按 年级 + 部门 分组，含平均分
+     */
+    List<Map<String, Object>> countGrades(StatisticsFilter filter);
+
+    List<Map<String, Object>> trendAttendance(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter);
+
+    List<Map<String, Object>> trendGrades(LocalDate startDate, LocalDate endDate, DateTimeFormatter formatter);
+
+    /**
+     * 一次扫描得到各区间的考勤汇总，结果下标 period * 2 + [总数, 出勤数]；
+     * 一条记录落在多个区间时计入每个区间，filter 的时间区间不参与
+     */
+    long[] attendanceByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods);
+
+    /**
+     * 一次扫描得到各区间的成绩汇总，结果下标 period * 3 + [记录数, 有分数的记录数, 分数和(两位小数 * 100)]；
+     * 没有考试日期的成绩不计入任何区间
+     */
+    long[] gradesByPeriod(StatisticsFilter filter, List<StatisticsPeriod> periods);
+
+    /**
+     * 多维统计：按所选维度分组一次计算所选指标
+     */
+    List<Map<String, Object>> cube(CubeQuery query);
+}
@@ -0,0 +1,22 @@
+package com.student.statistics;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * 统计筛选条件：时间区间（含首尾）+ 年级/部门/班级 + 状态
+ */
+@Value
+public class StatisticsFilter {
+    LocalDate startDate;
+    LocalDate endDate;
+    String grade;
+    String department;
+    Integer classId;
+    String status;
+
+    public StatisticsFilter withPeriod(LocalDate start, LocalDate end) {
+        return new StatisticsFilter(start, end, grade, department, classId, status);
+    }
+}
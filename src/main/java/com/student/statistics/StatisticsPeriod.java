@@ -0,0 +1,67 @@
+package com.student.statistics;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * 对比统计的一个时间区间（含首尾），起止为空表示不限
+ */
+@Value
+public class StatisticsPeriod {
+    LocalDate start;
+    LocalDate end;
+
+    public boolean contains(LocalDate date) {
+        if (date == null) return false;
+        if (start != null && date.isBefore(start)) return false;
+        if (end != null && date.isAfter(end)) return false;
+        return true;
+    }
+
+    /**
+     * 解析 "yyyy-MM-dd~yyyy-MM-dd"，任一侧留空表示不限
+     */
+    public static StatisticsPeriod parse(String value) {
+        int sep = value.indexOf('~');
+        if (sep < 0) {
+            throw new IllegalArgumentException("时间区间格式应为 开始日期~结束日期: " + value);
+        }
+        try {
+            return new StatisticsPeriod(parseDate(value.substring(0, sep)), parseDate(value.substring(sep + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无法解析时间区间: " + value);
+        }
+    }
+
+    /**
+     * 所有区间的最早开始日期，任一区间不限开始时返回 null
+     */
+    public static LocalDate earliestStart(List<StatisticsPeriod> periods) {
+        LocalDate min = null;
+        for (StatisticsPeriod p : periods) {
+            if (p.getStart() == null) return null;
+            if (min == null || p.getStart().isBefore(min)) min = p.getStart();
+        }
+        return min;
+    }
+
+    /**
+     * 所有区间的最晚结束日期，任一区间不限结束时返回 null
+     */
+    public static LocalDate latestEnd(List<StatisticsPeriod> periods) {
+        LocalDate max = null;
+        for (StatisticsPeriod p : periods) {
+            if (p.getEnd() == null) return null;
+            if (max == null || p.getEnd().isAfter(max)) max = p.getEnd();
+        }
+        return max;
+    }
+
+    private static LocalDate parseDate(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : LocalDate.parse(trimmed);
+    }
+}
@@ -0,0 +1,165 @@
+package com.student.statistics;
+
+import com.student.entity.Attendance;
+import com.student.entity.Grade;
+import com.student.entity.Student;
+import com.student.entity.Todo;
+import com.student.event.EntityChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 统计结果缓存（LRU + 过期时间）
+ * <p>
+ * 键为统计类型 + 全部查询参数；相关实体写入提交后按统计类型失效。
+ * 每个统计类型带一个版本号，计算期间发生过失效的结果不会写回缓存，避免旧数据覆盖新数据。
+ */
+@Component
+public class StatisticsResultCache {
+    /**
+     * 统计类型依赖的实体：学生/考勤/成绩统计按班级的年级、部门筛选，也依赖班级；
+     * 删除学生、班级会级联删除考勤和成绩，考勤/成绩统计也依赖学生
+     */
+    private static final Map<String, Set<java.lang.Class<?>>> DEPENDENCIES = new HashMap<>();
+
+    static {
+        DEPENDENCIES.put("students", new HashSet<>(Arrays.asList(Student.class, com.student.entity.Class.class)));
+        DEPENDENCIES.put("attendance", new HashSet<>(Arrays.asList(Attendance.class, Student.class, com.student.entity.Class.class)));
+        DEPENDENCIES.put("grades", new HashSet<>(Arrays.asList(Grade.class, Student.class, com.student.entity.Class.class)));
+        DEPENDENCIES.put("todos", new HashSet<>(Collections.singletonList(Todo.class)));
+    }
+
+    @Value("${statistics.cache.max-size:500}")
+    private int maxSize;
+
+    @Value("${statistics.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 读取缓存，未命中时计算并写入
+     *
+     * @param type 统计类型（students/attendance/grades/todos），用于失效
+     * @param key  查询的全部参数
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String type, List<Object> key, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+
+        long version = version(type).get();
+        T value = loader.get();
+        synchronized (entries) {
+            if (version(type).get() == version) {
+                entries.put(key, new Entry(type, value, now + ttlMs));
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChange(EntityChangeEvent event) {
+        for (String type : DEPENDENCIES.keySet()) {
+            if (dependsOn(type, event)) {
+                invalidate(type);
+            }
+        }
+    }
+
+    /**
+     * 该实体写入是否影响某个统计类型的结果
+     */
+    public static boolean dependsOn(String type, EntityChangeEvent event) {
+        Set<java.lang.Class<?>> dependencies = DEPENDENCIES.get(type);
+        return dependencies != null && dependencies.stream().anyMatch(event::isAbout);
+    }
+
+    /**
+     * 清除某个统计类型的全部缓存结果
+     */
+    public void invalidate(String type) {
+        synchronized (entries) {
+            version(type).incrementAndGet();
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (type.equals(it.next().type)) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 命中/未命中/淘汰计数，用于评估缓存容量
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("max_size", maxSize);
+        stats.put("ttl_ms", ttlMs);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_rate", StatisticsSupport.rate(hitCount, hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private AtomicLong version(String type) {
+        return versions.computeIfAbsent(type, k -> new AtomicLong());
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class Entry {
+        final String type;
+        final Object value;
+        final long expiresAt;
+
+        Entry(String type, Object value, long expiresAt) {
+            this.type = type;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.student.statistics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计结果的公共格式化方法，保证各引擎输出一致
+ */
+public final class StatisticsSupport {
+
+    private StatisticsSupport() {
+    }
+
+    public static String orUnknown(String value) {
+        return value != null ? value : "未知";
+    }
+
+    /**
+     * 解析枚举参数，无法识别时返回 null
+     */
+    public static <E extends Enum<E>> E parseEnum(java.lang.Class<E> type, String value) {
+        if (value == null) return null;
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static BigDecimal avgScore(BigDecimal sum, Long count) {
+        if (sum == null || count == null || count == 0) return BigDecimal.ZERO;
+        return sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 分数和以“分”（两位小数 * 100）表示时的平均分
+     */
+    public static BigDecimal avgScore(long sumHundredths, long count) {
+        if (count == 0) return BigDecimal.ZERO;
+        return BigDecimal.valueOf(sumHundredths, 2).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 出勤率（百分比，保留一位小数）
+     */
+    public static BigDecimal rate(long part, long total) {
+        if (total <= 0) return BigDecimal.ZERO;
+        return BigDecimal.valueOf(part * 100.0 / total).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    public static long toHundredths(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    public static Map<String, Object> attendanceTrendRow(String date, long total, long attendanceCount, long absenceCount) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("date", date);
+        m.put("count", total);
+        m.put("attendance_count", attendanceCount);
+        m.put("absence_count", absenceCount);
+        return m;
+    }
+
+    public static Map<String, Object> gradeTrendRow(String date, long total, BigDecimal avgScore) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("date", date);
+        m.put("count", total);
+        m.put("avg_score", avgScore);
+        return m;
+    }
+
+    /**
+     * 以只进游标流式读取（MySQL 需 fetchSize = Integer.MIN_VALUE），避免整表结果集驻留内存
+     */
+    public static void streamRows(JdbcTemplate jdbcTemplate, String sql, RowCallbackHandler handler) {
+        streamRows(jdbcTemplate, sql, Collections.emptyList(), handler);
+    }
+
+    /**
+     * 带参数的流式读取，args 依次绑定到 sql 中的 ?
+     */
+    public static void streamRows(JdbcTemplate jdbcTemplate, String sql, List<?> args, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+}
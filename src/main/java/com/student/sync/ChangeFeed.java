@@ -0,0 +1,242 @@
+package com.student.sync;
+
+import com.student.common.KeysetPageRequest;
+import com.student.dto.ChangeSet;
+import com.student.dto.CursorPage;
+import com.student.entity.Attendance;
+import com.student.entity.Class;
+import com.student.entity.Grade;
+import com.student.entity.Schedule;
+import com.student.entity.Student;
+import com.student.entity.Todo;
+import com.student.event.CascadeDeleteEvent;
+import com.student.event.EntityChangeEvent;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.ListProjection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 增量同步：按 updated_at 水位返回变化的行，按删除记录表返回删除的 id
+ * <p>
+ * 令牌记录两个位置：修改的水位（或未翻完时的 keyset 游标）与删除记录的 (deleted_at, id)。
+ * 一轮取完后水位回退 overlap 作为下次起点，覆盖查询时尚未提交的事务和秒级时间戳的舍入，
+ * 代价是重叠窗口内的行会重复返回，客户端按 id 覆盖写入即可。
+ * 只跟踪行本身的 updated_at：DTO 中连接出来的列（如班级名称）变化不会让行进入增量。
+ */
+@Slf4j
+@Component
+public class ChangeFeed {
+    private static final Set<String> SORTABLE = Collections.singleton("updatedAt");
+
+    /** 参与同步的实体与删除记录中的类型名 */
+    private static final Map<java.lang.Class<?>, String> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put(Student.class, "students");
+        TYPES.put(Attendance.class, "attendance");
+        TYPES.put(Grade.class, "grades");
+        TYPES.put(Todo.class, "todos");
+        TYPES.put(Schedule.class, "schedules");
+    }
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${sync.default-limit:500}")
+    private int defaultLimit;
+
+    @Value("${pagination.max-size:500}")
+    private int maxLimit;
+
+    @Value("${sync.overlap-ms:5000}")
+    private long overlapMs;
+
+    @Value("${sync.tombstone-retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * 返回令牌之后的变化；since 为空时从头全量返回（不含历史删除）
+     *
+     * @param counter 分页器需要，增量查询不计算 total
+     */
+    public <T, R> ChangeSet<R> changes(java.lang.Class<T> type, ListProjection<T, R> projection,
+                                       JpaSpecificationExecutor<T> counter, String since, Integer limit) {
+        String entityType = typeOf(type);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.minus(Duration.ofMillis(overlapMs));
+        Token token = since != null ? Token.decode(since, entityType) : new Token(entityType, null, null, horizon, 0);
+        if (token.deletedAt.isBefore(now.minusDays(retentionDays))) {
+            throw new IllegalArgumentException("同步令牌已过期，请不带 since 重新全量同步");
+        }
+        int size = limit != null ? Math.max(1, Math.min(maxLimit, limit)) : defaultLimit;
+
+        CursorPage<R> page = keysetPaginator.page(type, updatedSince(token.watermark), projection, SORTABLE,
+                new KeysetPageRequest(size, token.cursor, "updatedAt", false), counter);
+
+        List<Tombstone> tombstones = jdbcTemplate.query("SELECT id, entity_id, deleted_at FROM sync_tombstones "
+                        + "WHERE entity_type = ? AND (deleted_at > ? OR (deleted_at = ? AND id > ?)) "
+                        + "ORDER BY deleted_at, id LIMIT ?",
+                (rs, i) -> new Tombstone(rs.getLong(1), rs.getInt(2), rs.getTimestamp(3).toLocalDateTime()),
+                entityType, token.deletedAt, token.deletedAt, token.deletedId, size + 1);
+        boolean moreDeleted = tombstones.size() > size;
+        List<Integer> deleted = new ArrayList<>(Math.min(size, tombstones.size()));
+        for (int i = 0; i < size && i < tombstones.size(); i++) {
+            deleted.add(tombstones.get(i).entityId);
+        }
+
+        // 未取完的部分从上次停下的位置继续，取完的部分从本次开始时间回退 overlap 处开始
+        Token next = new Token(entityType,
+                page.isHas_more() ? token.watermark : horizon,
+                page.isHas_more() ? page.getNext_cursor() : null,
+                moreDeleted ? tombstones.get(size - 1).deletedAt : horizon,
+                moreDeleted ? tombstones.get(size - 1).id : 0);
+        return new ChangeSet<>(page.getItems(), deleted, next.encode(), page.isHas_more() || moreDeleted);
+    }
+
+    /**
+     * 删除时在同一事务中写入删除记录（回滚则一并撤销）
+     */
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isDelete()) {
+            return;
+        }
+        String entityType = TYPES.get(event.getEntityType());
+        if (entityType != null) {
+            Object id = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(event.getBefore(Object.class));
+            jdbcTemplate.update("INSERT INTO sync_tombstones (entity_type, entity_id, deleted_at) VALUES (?, ?, ?)",
+                    entityType, id, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 删除学生/班级时由外键级联删除的考勤、成绩、课表没有各自的事件，按 {@link CascadeDeleteEvent} 一并记下；
+     * 外键置空的待办刷新 updated_at 使其进入增量
+     */
+    @EventListener
+    public void onCascadeDelete(CascadeDeleteEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        recordCascade("attendance", event.getAttendance().stream().map(Attendance::getId).collect(Collectors.toList()), now);
+        recordCascade("grades", event.getGrades().stream().map(Grade::getId).collect(Collectors.toList()), now);
+        recordCascade("schedules", event.getScheduleIds(), now);
+        String column = event.isAbout(Class.class) ? "related_class_id" : "related_student_id";
+        jdbcTemplate.update("UPDATE todos SET updated_at = ? WHERE " + column + " = ?", now, event.getParentId());
+    }
+
+    /**
+     * 定时清理超过保留期的删除记录；令牌早于保留期的客户端需要重新全量同步
+     */
+    @Scheduled(initialDelayString = "${sync.tombstone-purge-interval-ms:86400000}",
+            fixedDelayString = "${sync.tombstone-purge-interval-ms:86400000}")
+    public void purgeTombstones() {
+        int purged = jdbcTemplate.update("DELETE FROM sync_tombstones WHERE deleted_at < ?",
+                LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) {
+            log.info("已清理 {} 条超过 {} 天的删除记录", purged, retentionDays);
+        }
+    }
+
+    private void recordCascade(String entityType, List<Integer> ids, LocalDateTime now) {
+        jdbcTemplate.batchUpdate("INSERT INTO sync_tombstones (entity_type, entity_id, deleted_at) VALUES (?, ?, ?)",
+                ids, 500, (ps, id) -> {
+                    ps.setString(1, entityType);
+                    ps.setInt(2, id);
+                    ps.setObject(3, now);
+                });
+    }
+
+    private static <T> Specification<T> updatedSince(LocalDateTime watermark) {
+        return (root, query, cb) -> watermark != null
+                ? cb.greaterThanOrEqualTo(root.<LocalDateTime>get("updatedAt"), watermark) : null;
+    }
+
+    private static String typeOf(java.lang.Class<?> type) {
+        String entityType = TYPES.get(type);
+        if (entityType == null) {
+            throw new IllegalArgumentException("不支持增量同步: " + type.getSimpleName());
+        }
+        return entityType;
+    }
+
+    private static final class Tombstone {
+        final long id;
+        final int entityId;
+        final LocalDateTime deletedAt;
+
+        Tombstone(long id, int entityId, LocalDateTime deletedAt) {
+            this.id = id;
+            this.entityId = entityId;
+            this.deletedAt = deletedAt;
+        }
+    }
+
+    /**
+     * 令牌内容：类型、修改水位、keyset 游标、删除记录位置，Base64 编码后对调用方不透明
+     */
+    private static final class Token {
+        final String entityType;
+        final LocalDateTime watermark;
+        final String cursor;
+        final LocalDateTime deletedAt;
+        final long deletedId;
+
+        Token(String entityType, LocalDateTime watermark, String cursor, LocalDateTime deletedAt, long deletedId) {
+            this.entityType = entityType;
+            this.watermark = watermark;
+            this.cursor = cursor;
+            this.deletedAt = deletedAt;
+            this.deletedId = deletedId;
+        }
+
+        String encode() {
+            String raw = entityType + "\n" + (watermark != null ? watermark : "") + "\n" + (cursor != null ? cursor : "")
+                    + "\n" + deletedAt + "\n" + deletedId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Token decode(String token, String expectedType) {
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", -1);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("无效的同步令牌");
+            }
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("无效的同步令牌");
+            }
+            if (!parts[0].equals(expectedType)) {
+                throw new IllegalArgumentException("同步令牌不属于该资源");
+            }
+            try {
+                return new Token(parts[0],
+                        parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]),
+                        parts[2].isEmpty() ? null : parts[2],
+                        LocalDateTime.parse(parts[3]),
+                        Long.parseLong(parts[4]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("无效的同步令牌");
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.student.statistics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.student.common.KeysetPageRequest;
+import com.student.common.Result;
+import com.student.dto.CursorPage;
+import com.student.entity.Attendance;
+import com.student.entity.Grade;
+import com.student.entity.Student;
+import com.student.repository.AttendanceRepository;
+import com.student.repository.DtoProjections;
+import com.student.repository.GradeRepository;
+import com.student.repository.KeysetPaginator;
+import com.student.repository.StudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 响应序列化基准：取一页真实列表数据（与列表接口相同的 Result 包装），
+ * 用已注册的每种 Jackson 转换器（JSON、CBOR、Smile）反复序列化，
+ * 比较响应字节数、gzip 后字节数和每次序列化/压缩消耗的线程 CPU 时间
+ * <p>
+ * 需要可连接的数据库；类名不匹配 surefire 默认的测试类命名，普通的 mvn test 不会执行，需显式指定：
+ * {@code mvn test -Dtest=SerializationBenchmark -Dbenchmark.resource=grades -Dbenchmark.size=500 -Dbenchmark.iterations=200}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class SerializationBenchmark {
+    private static final int WARMUP = 5;
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    @Autowired
+    private HttpMessageConverters messageConverters;
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Value("${serialization.blackbird:true}")
+    private boolean blackbird;
+
+    /** students / attendance / grades */
+    @Value("${benchmark.resource:grades}")
+    private String resource;
+
+    /** 每页行数，与列表分页同样受 pagination.max-size 限制 */
+    @Value("${benchmark.size:500}")
+    private int size;
+
+    @Value("${benchmark.iterations:200}")
+    private int iterations;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void compareFormats() throws IOException {
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(run()));
+    }
+
+    private Map<String, Object> run() {
+        int rounds = Math.max(1, iterations);
+        KeysetPageRequest page = new KeysetPageRequest(size, null, null, false);
+        Result<?> payload = Result.success(loadPage(resource, page));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        // 同一媒体类型只测第一个转换器，即内容协商时实际选中的那个
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        for (HttpMessageConverter<?> converter : messageConverters.getConverters()) {
+            if (converter instanceof AbstractJackson2HttpMessageConverter) {
+                mappers.putIfAbsent(converter.getSupportedMediaTypes().get(0).toString(),
+                        ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper());
+            }
+        }
+
+        List<Map<String, Object>> formats = new ArrayList<>();
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] body = serialize(mapper, payload);
+            for (int i = 0; i < WARMUP; i++) {
+                serialize(mapper, payload);
+            }
+            long start = cpuTime(threads);
+            for (int i = 0; i < rounds; i++) {
+                serialize(mapper, payload);
+            }
+            long serializeNanos = (cpuTime(threads) - start) / rounds;
+
+            byte[] compressed = gzip(body);
+            start = cpuTime(threads);
+            for (int i = 0; i < rounds; i++) {
+                gzip(body);
+            }
+            long gzipNanos = (cpuTime(threads) - start) / rounds;
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("media_type", entry.getKey());
+            m.put("bytes", (long) body.length);
+            m.put("gzip_bytes", (long) compressed.length);
+            m.put("serialize_cpu_ns", serializeNanos);
+            m.put("gzip_cpu_ns", gzipNanos);
+            formats.add(m);
+        }
+        // 以当前的 JSON 响应为基准
+        formats.stream().filter(m -> JSON.equals(m.get("media_type"))).findFirst().ifPresent(json -> {
+            for (Map<String, Object> m : formats) {
+                m.put("bytes_vs_json", ratio((Long) m.get("bytes"), (Long) json.get("bytes")));
+                m.put("cpu_vs_json", ratio((Long) m.get("serialize_cpu_ns"), (Long) json.get("serialize_cpu_ns")));
+            }
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resource", resource);
+        result.put("rows", ((CursorPage<?>) payload.getData()).getItems().size());
+        result.put("iterations", rounds);
+        result.put("blackbird", blackbird);
+        result.put("cpu_timer", threads.isCurrentThreadCpuTimeSupported() ? "thread_cpu" : "wall_clock");
+        result.put("formats", formats);
+        return result;
+    }
+
+    private CursorPage<?> loadPage(String resource, KeysetPageRequest page) {
+        switch (resource) {
+            case "students":
+                return keysetPaginator.page(Student.class, (root, query, cb) -> null, DtoProjections.STUDENT,
+                        Collections.emptySet(), page, studentRepository);
+            case "attendance":
+                return keysetPaginator.page(Attendance.class, (root, query, cb) -> null, DtoProjections.ATTENDANCE,
+                        Collections.emptySet(), page, attendanceRepository);
+            case "grades":
+                return keysetPaginator.page(Grade.class, (root, query, cb) -> null, DtoProjections.GRADE,
+                        Collections.emptySet(), page, gradeRepository);
+            default:
+                throw new IllegalArgumentException("不支持的资源: " + resource);
+        }
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Object payload) {
+        try {
+            return mapper.writeValueAsBytes(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static long cpuTime(ThreadMXBean threads) {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static BigDecimal ratio(long value, long base) {
+        return base > 0 ? BigDecimal.valueOf(value).divide(BigDecimal.valueOf(base), 3, RoundingMode.HALF_UP) : null;
+    }
+}